@@ -0,0 +1,136 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates a synthetic but valid Conjure corpus of a given size. Types are spread over files of
+ * {@value #TYPES_PER_FILE} types each, all of which import a shared {@code common.yml}. Every file mixes objects,
+ * enums and unions whose fields use primitives, containers, local references and imported aliases, and defines an
+ * error and a service, so that each stage of the compiler has representative work to do.
+ */
+public final class SyntheticCorpus {
+    private static final int TYPES_PER_FILE = 100;
+    private static final int COMMON_TYPES = 20;
+    private static final int ENDPOINTS_PER_FILE = 10;
+    private static final String[] PRIMITIVES = {"string", "integer", "double", "safelong", "datetime", "uuid", "rid"};
+
+    private SyntheticCorpus() {}
+
+    /** Writes a corpus with {@code types} types, excluding the shared common types, to {@code dir}. */
+    public static List<File> write(Path dir, int types) throws IOException {
+        List<File> files = new ArrayList<>();
+        files.add(write(dir.resolve("common.yml"), common()));
+        for (int index = 0; index * TYPES_PER_FILE < types; index++) {
+            int count = Math.min(TYPES_PER_FILE, types - index * TYPES_PER_FILE);
+            files.add(write(dir.resolve("api" + index + ".yml"), api(index, count)));
+        }
+        return files;
+    }
+
+    private static File write(Path path, String content) throws IOException {
+        return Files.write(path, content.getBytes(StandardCharsets.UTF_8)).toFile();
+    }
+
+    private static String common() {
+        StringBuilder yaml = new StringBuilder()
+                .append("types:\n")
+                .append("  definitions:\n")
+                .append("    default-package: com.palantir.benchmark.common\n")
+                .append("    objects:\n");
+        for (int i = 0; i < COMMON_TYPES; i++) {
+            yaml.append("      CommonAlias").append(i).append(":\n")
+                    .append("        alias: ").append(PRIMITIVES[i % PRIMITIVES.length]).append('\n');
+        }
+        return yaml.toString();
+    }
+
+    private static String api(int index, int count) {
+        String packageName = "com.palantir.benchmark.api" + index;
+        StringBuilder yaml = new StringBuilder()
+                .append("types:\n")
+                .append("  conjure-imports:\n")
+                .append("    common: common.yml\n")
+                .append("  definitions:\n")
+                .append("    default-package: ").append(packageName).append('\n')
+                .append("    objects:\n");
+        for (int i = 0; i < count; i++) {
+            yaml.append("      Type").append(i).append(":\n");
+            if (i % 10 == 0) {
+                yaml.append("        values:\n");
+                for (int value = 0; value < 5; value++) {
+                    yaml.append("          - VALUE_").append(value).append('\n');
+                }
+            } else if (i % 10 == 1) {
+                yaml.append("        union:\n")
+                        .append("          first: Type").append(i - 1).append('\n')
+                        .append("          second: list<common.CommonAlias").append(i % COMMON_TYPES).append(">\n")
+                        .append("          third: ").append(PRIMITIVES[i % PRIMITIVES.length]).append('\n');
+            } else {
+                // only reference earlier types, which keeps the corpus free of recursive types
+                yaml.append("        fields:\n")
+                        .append("          id: ").append(PRIMITIVES[i % PRIMITIVES.length]).append('\n')
+                        .append("          count: optional<integer>\n")
+                        .append("          tags: set<string>\n")
+                        .append("          previous: optional<Type").append(i - 1).append(">\n")
+                        .append("          history: list<Type").append(i - 2).append(">\n")
+                        .append("          lookup: map<string, common.CommonAlias").append(i % COMMON_TYPES)
+                        .append(">\n")
+                        .append("          created:\n")
+                        .append("            type: datetime\n")
+                        .append("            docs: When this object was created.\n");
+            }
+        }
+        yaml.append("    errors:\n")
+                .append("      NotFound:\n")
+                .append("        namespace: Api").append(index).append('\n')
+                .append("        code: NOT_FOUND\n")
+                .append("        safe-args:\n")
+                .append("          id: string\n")
+                .append("services:\n")
+                .append("  Api").append(index).append("Service:\n")
+                .append("    name: Api").append(index).append(" Service\n")
+                .append("    package: ").append(packageName).append('\n')
+                .append("    base-path: /api").append(index).append('\n')
+                .append("    default-auth: header\n")
+                .append("    endpoints:\n");
+        for (int i = 0; i < Math.min(ENDPOINTS_PER_FILE, count); i++) {
+            yaml.append("      getType").append(i).append(":\n")
+                    .append("        http: GET /types").append(i).append("/{id}\n")
+                    .append("        args:\n")
+                    .append("          id: string\n")
+                    .append("          limit:\n")
+                    .append("            type: optional<integer>\n")
+                    .append("            param-type: query\n")
+                    .append("        returns: list<Type").append(i).append(">\n")
+                    .append("      putType").append(i).append(":\n")
+                    .append("        http: PUT /types").append(i).append("/{id}\n")
+                    .append("        args:\n")
+                    .append("          id: string\n")
+                    .append("          body: Type").append(i).append('\n')
+                    .append("        returns: optional<Type").append(i).append(">\n");
+        }
+        return yaml.toString();
+    }
+}
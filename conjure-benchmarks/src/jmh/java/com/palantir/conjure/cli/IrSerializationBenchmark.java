@@ -0,0 +1,86 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.palantir.conjure.IrFormat;
+import com.palantir.conjure.benchmarks.SyntheticCorpus;
+import com.palantir.conjure.defs.Conjure;
+import com.palantir.conjure.spec.ConjureDefinition;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures writing the IR of a compiled {@link SyntheticCorpus} in each {@link IrFormat}, pretty printing JSON as the
+ * CLI does by default.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IrSerializationBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int types;
+
+    @Param({"JSON", "SMILE"})
+    public IrFormat format;
+
+    private Path corpus;
+    private ConjureDefinition definition;
+    private ObjectWriter writer;
+    private File output;
+
+    @Setup
+    public void before() throws IOException {
+        corpus = Files.createTempDirectory("conjure-benchmark");
+        definition = Conjure.parse(SyntheticCorpus.write(corpus, types));
+        ObjectMapper mapper = format.newObjectMapper();
+        writer = format == IrFormat.JSON ? mapper.writerWithDefaultPrettyPrinter() : mapper.writer();
+        output = corpus.resolve("ir").toFile();
+    }
+
+    @TearDown
+    public void after() throws IOException {
+        FileUtils.deleteDirectory(corpus.toFile());
+    }
+
+    @Benchmark
+    public File write() throws IOException {
+        writer.writeValue(output, definition);
+        return output;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure.defs;
+
+import com.palantir.conjure.benchmarks.SyntheticCorpus;
+import com.palantir.conjure.defs.validator.ConjureDefinitionValidator;
+import com.palantir.conjure.parser.AnnotatedConjureSourceFile;
+import com.palantir.conjure.parser.ConjureParser;
+import com.palantir.conjure.parser.NormalizeDefinition;
+import com.palantir.conjure.spec.ConjureDefinition;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures each stage of compiling a {@link SyntheticCorpus} in isolation: reading the YAML files, converting them to
+ * a {@link ConjureDefinition}, validating and normalizing it. The inputs of each stage are produced once in
+ * {@link #before()}, so every benchmark measures only its own stage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConjurePipelineBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int types;
+
+    private Path corpus;
+    private List<File> files;
+    private List<AnnotatedConjureSourceFile> parsed;
+    private ConjureDefinition definition;
+
+    @Setup
+    public void before() throws IOException {
+        corpus = Files.createTempDirectory("conjure-benchmark");
+        files = SyntheticCorpus.write(corpus, types);
+        parsed = ConjureParser.newSession().parseAnnotated(files, 1);
+        definition = ConjureParserUtils.parseConjureDef(parsed);
+    }
+
+    @TearDown
+    public void after() throws IOException {
+        FileUtils.deleteDirectory(corpus.toFile());
+    }
+
+    @Benchmark
+    public List<AnnotatedConjureSourceFile> parse() {
+        return ConjureParser.newSession().parseAnnotated(files, 1);
+    }
+
+    /** Includes validation, as {@link ConjureParserUtils#parseConjureDef} validates the merged definition. */
+    @Benchmark
+    public ConjureDefinition convert() {
+        return ConjureParserUtils.parseConjureDef(parsed);
+    }
+
+    /** Converts files, and validates their endpoints, on as many threads as there are processors. */
+    @Benchmark
+    public ConjureDefinition convertConcurrently() {
+        return ConjureParserUtils.parseConjureDef(parsed, Runtime.getRuntime().availableProcessors());
+    }
+
+    @Benchmark
+    public ConjureDefinition validate() {
+        ConjureDefinitionValidator.validateAll(definition);
+        return definition;
+    }
+
+    @Benchmark
+    public ConjureDefinition normalize() {
+        return NormalizeDefinition.normalize(definition);
+    }
+
+    @Benchmark
+    public ConjureDefinition compile() {
+        return Conjure.parse(files);
+    }
+}
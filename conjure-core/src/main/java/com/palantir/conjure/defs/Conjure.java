@@ -16,27 +16,163 @@
 
 package com.palantir.conjure.defs;
 
+import com.google.common.base.Preconditions;
+import com.palantir.conjure.defs.validator.ConjureDefinitionValidator;
+import com.palantir.conjure.defs.validator.ConjureDiagnostic;
+import com.palantir.conjure.defs.validator.ConjureValidationException;
 import com.palantir.conjure.parser.AnnotatedConjureSourceFile;
 import com.palantir.conjure.parser.ConjureParser;
 import com.palantir.conjure.parser.NormalizeDefinition;
 import com.palantir.conjure.spec.ConjureDefinition;
+import com.palantir.conjure.spec.TypeName;
+import com.palantir.parsec.ParserProfiler;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public final class Conjure {
     public static final Integer SUPPORTED_IR_VERSION = 1;
 
+    private static final Logger log = LoggerFactory.getLogger(Conjure.class);
+
     private Conjure() {}
 
     /**
      * Deserializes {@link ConjureDefinition} from their YAML representations in the given files.
      */
     public static ConjureDefinition parse(Collection<File> files) {
-        List<AnnotatedConjureSourceFile> sourceFiles =
-                files.stream().map(ConjureParser::parseAnnotated).collect(Collectors.toList());
-        ConjureDefinition ir = ConjureParserUtils.parseConjureDef(sourceFiles);
+        return parse(files, 1);
+    }
+
+    /**
+     * Deserializes {@link ConjureDefinition} from their YAML representations in the given files, reading and
+     * converting the files with up to {@code threads} worker threads. The result is identical to that of
+     * {@link #parse(Collection)}.
+     */
+    public static ConjureDefinition parse(Collection<File> files, int threads) {
+        return parse(files, threads, Optional.empty());
+    }
+
+    /**
+     * Creates an {@link IncrementalCompiler}, which recompiles only the files affected by a change, using up to
+     * {@code threads} worker threads.
+     */
+    public static IncrementalCompiler incremental(int threads) {
+        return new IncrementalCompiler(threads);
+    }
+
+    /**
+     * Deserializes {@link ConjureDefinition} from their YAML representations in the given files, as
+     * {@link #parse(Collection, int)} does. If {@code cacheDir} is present, the definitions converted from each file
+     * are persisted there, and files which did not change since an earlier compilation, and none of whose imports
+     * changed either, are neither read nor converted again.
+     */
+    public static ConjureDefinition parse(Collection<File> files, int threads, Optional<File> cacheDir) {
+        return parse(files, threads, cacheDir, 1);
+    }
+
+    /**
+     * Deserializes {@link ConjureDefinition} from their YAML representations in the given files, as
+     * {@link #parse(Collection, int, Optional)} does. With {@code maxErrors} of 1, the first error found is thrown.
+     * With a larger value, every endpoint, service and rule is validated even after errors were found, and a
+     * {@link ConjureValidationException} reporting up to {@code maxErrors} of them is thrown. The definition as a
+     * whole is validated as well, leaving out only the files which failed to convert.
+     */
+    public static ConjureDefinition parse(
+            Collection<File> files, int threads, Optional<File> cacheDir, int maxErrors) {
+        return parse(files, threads, cacheDir, maxErrors, ConjureParser.newSession());
+    }
+
+    /**
+     * Deserializes {@link ConjureDefinition} from their YAML representations in the given files, as
+     * {@link #parse(Collection, int, Optional, int)} does, but reads them through the given session. A session kept
+     * by a long-running process thus carries the files it read over to the next compilation, and only files which
+     * were modified since, and the files which import them, are read again.
+     */
+    public static ConjureDefinition parse(
+            Collection<File> files,
+            int threads,
+            Optional<File> cacheDir,
+            int maxErrors,
+            ConjureParser.Session session) {
+        Preconditions.checkArgument(maxErrors >= 1, "maxErrors must be at least 1: %s", maxErrors);
+        if (ParserProfiler.isEnabled()) {
+            // report on this compilation only, not on earlier ones of the same process
+            ParserProfiler.reset();
+        }
+        Optional<FragmentCache> cache = cacheDir.flatMap(FragmentCache::create);
+        List<Optional<ConjureDefinition>> cachedFragments = new ArrayList<>(files.size());
+        List<File> staleFiles = new ArrayList<>();
+        for (File file : files) {
+            Optional<ConjureDefinition> cachedFragment = cache.flatMap(c -> c.get(file));
+            cachedFragments.add(cachedFragment);
+            if (!cachedFragment.isPresent()) {
+                staleFiles.add(file);
+            }
+        }
+
+        session.invalidateModified();
+        int cacheHits = session.cacheHits();
+        int cacheMisses = session.cacheMisses();
+        List<AnnotatedConjureSourceFile> sourceFiles = session.parseAnnotated(staleFiles, threads);
+        log.debug("Parsed {} of {} conjure files ({} import cache hits, {} misses)",
+                staleFiles.size(), files.size(), session.cacheHits() - cacheHits, session.cacheMisses() - cacheMisses);
+        log.debug("Type expression cache: {}", session.typeCacheStats());
+        List<ConjureDiagnostic> diagnostics = new ArrayList<>();
+        List<Optional<ConjureDefinition>> parsedFragments = maxErrors == 1
+                ? ConjureParserUtils.parseConjureFiles(sourceFiles, threads).stream()
+                        .map(Optional::of)
+                        .collect(Collectors.toList())
+                : ConjureParserUtils.parseConjureFiles(sourceFiles, threads, diagnostics);
+        // only cache valid fragments, so that the errors of the others are reported again by the next compilation
+        Set<File> invalidFiles = diagnostics.stream()
+                .flatMap(diagnostic -> diagnostic.file().map(Stream::of).orElseGet(Stream::empty))
+                .collect(Collectors.toSet());
+        cache.ifPresent(c -> {
+            for (int i = 0; i < sourceFiles.size(); i++) {
+                AnnotatedConjureSourceFile sourceFile = sourceFiles.get(i);
+                if (!invalidFiles.contains(sourceFile.sourceFile())) {
+                    parsedFragments.get(i).ifPresent(fragment -> c.put(sourceFile, fragment));
+                }
+            }
+        });
+
+        // reassemble the fragments in input order, so the result does not depend on what was cached; files which
+        // failed to convert have no fragment
+        Iterator<Optional<ConjureDefinition>> parsedIterator = parsedFragments.iterator();
+        List<ConjureDefinition> fragments = cachedFragments.stream()
+                .map(cachedFragment -> cachedFragment.isPresent() ? cachedFragment : parsedIterator.next())
+                .flatMap(fragment -> fragment.map(Stream::of).orElseGet(Stream::empty))
+                .collect(Collectors.toList());
+        ConjureDefinition ir;
+        if (maxErrors == 1) {
+            ir = ConjureParserUtils.mergeConjureFiles(fragments);
+        } else {
+            ir = ConjureParserUtils.concatConjureFiles(fragments);
+            // references into files which failed to convert cannot be resolved, but those files were reported already
+            Set<TypeName> unconvertedTypes = new HashSet<>();
+            for (int i = 0; i < sourceFiles.size(); i++) {
+                if (!parsedFragments.get(i).isPresent()) {
+                    unconvertedTypes.addAll(ConjureParserUtils.declaredTypeNames(sourceFiles.get(i)));
+                }
+            }
+            diagnostics.addAll(ConjureDefinitionValidator.collectAll(ir, unconvertedTypes));
+            if (!diagnostics.isEmpty()) {
+                throw new ConjureValidationException(diagnostics, maxErrors);
+            }
+        }
+        if (ParserProfiler.isEnabled()) {
+            log.info("Parser profile:\n{}", ParserProfiler.report());
+        }
         return NormalizeDefinition.normalize(ir);
     }
 }
@@ -16,9 +16,13 @@
 
 package com.palantir.conjure.defs;
 
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.palantir.conjure.defs.ConjureTypeParserVisitor.ReferenceTypeResolver;
 import com.palantir.conjure.defs.validator.ConjureDefinitionValidator;
+import com.palantir.conjure.defs.validator.ConjureDiagnostic;
 import com.palantir.conjure.defs.validator.EndpointDefinitionValidator;
 import com.palantir.conjure.defs.validator.EnumDefinitionValidator;
 import com.palantir.conjure.defs.validator.EnumValueDefinitionValidator;
@@ -76,10 +80,18 @@ import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -178,65 +190,317 @@ public final class ConjureParserUtils {
 
     public static Type parsePrimitiveType(
             com.palantir.conjure.parser.types.primitive.PrimitiveType primitiveType) {
-        return Type.primitive(PrimitiveType.valueOf(primitiveType.name()));
+        return TypeInterner.intern(Type.primitive(PrimitiveType.valueOf(primitiveType.name())));
     }
 
     public static TypeName createTypeName(
             String name,
             com.palantir.conjure.parser.types.BaseObjectTypeDefinition def,
             Optional<String> defaultPackage) {
-        TypeName type = TypeName.of(name, parsePackageOrElseThrow(def.conjurePackage(), defaultPackage));
+        TypeName type = TypeInterner.intern(
+                TypeName.of(name, parsePackageOrElseThrow(def.conjurePackage(), defaultPackage)));
         TypeNameValidator.validate(type);
         return type;
     }
 
     static ConjureDefinition parseConjureDef(Collection<AnnotatedConjureSourceFile> annotatedParsedDefs) {
+        return parseConjureDef(annotatedParsedDefs, 1);
+    }
+
+    /**
+     * Converts the given files into a single, validated {@link ConjureDefinition}. With more than one thread, files
+     * are converted concurrently, see {@link #parseConjureFiles(Collection, int)}.
+     */
+    static ConjureDefinition parseConjureDef(
+            Collection<AnnotatedConjureSourceFile> annotatedParsedDefs, int threads) {
+        return mergeConjureFiles(parseConjureFiles(annotatedParsedDefs, threads));
+    }
+
+    /**
+     * Converts each of the given files into a definition fragment, see {@link #mergeConjureFiles(List)}. The services
+     * of each fragment are validated, but not the fragment as a whole. With one thread, each endpoint and service is
+     * validated as soon as it is converted, so the first error in declaration order is thrown, whether it is a
+     * conversion or a validation error. With more than one thread, files are converted concurrently on a
+     * {@link ForkJoinPool}, and once a file is converted, its endpoints and services are validated concurrently as
+     * well; within a file, conversion errors then take precedence over validation errors, which are reported for the
+     * first failing endpoint or service in declaration order. In both cases fragments are returned in the iteration
+     * order of {@code annotatedParsedDefs}, and the error of the first failing file in that order is thrown.
+     */
+    static List<ConjureDefinition> parseConjureFiles(
+            Collection<AnnotatedConjureSourceFile> annotatedParsedDefs, int threads) {
+        Preconditions.checkArgument(threads >= 1, "threads must be at least 1: %s", threads);
+        return threads == 1
+                ? annotatedParsedDefs.stream()
+                        .map(annotatedParsed -> parseConjureFile(annotatedParsed, true).fragment)
+                        .collect(Collectors.toList())
+                : parseConjureFilesConcurrently(annotatedParsedDefs, threads);
+    }
+
+    /**
+     * Converts each of the given files into a definition fragment, like {@link #parseConjureFiles(Collection, int)},
+     * but rather than throwing the first error, adds a diagnostic for every error found to {@code diagnostics}. A
+     * file which fails to convert yields a single {@link ConjureDiagnostic#CONVERSION} diagnostic; otherwise every rule
+     * violated by its endpoints and services is reported. Fragments are returned in the iteration order of
+     * {@code annotatedParsedDefs}, and are only absent for files which failed to convert, so that the definition as a
+     * whole can still be validated; diagnostics are added in the same order.
+     */
+    static List<Optional<ConjureDefinition>> parseConjureFiles(
+            Collection<AnnotatedConjureSourceFile> annotatedParsedDefs,
+            int threads,
+            List<ConjureDiagnostic> diagnostics) {
+        Preconditions.checkArgument(threads >= 1, "threads must be at least 1: %s", threads);
+        List<CompletableFuture<FileResult>> futures;
+        if (threads == 1) {
+            futures = annotatedParsedDefs.stream()
+                    .map(annotatedParsed -> collectConjureFile(annotatedParsed, MoreExecutors.directExecutor()))
+                    .collect(Collectors.toList());
+            return collectResults(futures, diagnostics);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            futures = annotatedParsedDefs.stream()
+                    .map(annotatedParsed -> CompletableFuture
+                            .supplyAsync(() -> collectConjureFile(annotatedParsed, pool), pool)
+                            .thenCompose(Function.identity()))
+                    .collect(Collectors.toList());
+            return collectResults(futures, diagnostics);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Concatenates per-file fragments, in order, into a single definition and validates it. */
+    static ConjureDefinition mergeConjureFiles(List<ConjureDefinition> fragments) {
+        ConjureDefinition definition = concatConjureFiles(fragments);
+        ConjureDefinitionValidator.validateAll(definition);
+        return definition;
+    }
+
+    /** Concatenates per-file fragments, in order, into a single definition without validating it. */
+    static ConjureDefinition concatConjureFiles(List<ConjureDefinition> fragments) {
         ImmutableList.Builder<ServiceDefinition> servicesBuilder = ImmutableList.builder();
         ImmutableList.Builder<ErrorDefinition> errorsBuilder = ImmutableList.builder();
         ImmutableList.Builder<TypeDefinition> typesBuilder = ImmutableList.builder();
-
-        annotatedParsedDefs.forEach(annotatedParsed -> {
-            ConjureSourceFile parsed = annotatedParsed.conjureSourceFile();
-
-            try {
-                ConjureTypeParserVisitor.ReferenceTypeResolver typeResolver =
-                        new ConjureTypeParserVisitor.ByParsedRepresentationTypeNameResolver(parsed.types());
-
-                // Resolve objects first, so we can use them in service validations
-                Map<TypeName, TypeDefinition> objects = parseObjects(parsed.types(), typeResolver);
-                Map<TypeName, TypeDefinition> importedObjects = parseImportObjects(parsed.types().conjureImports());
-                Map<TypeName, TypeDefinition> allObjects = new HashMap<>();
-                allObjects.putAll(objects);
-                allObjects.putAll(importedObjects);
-
-                DealiasingTypeVisitor dealiasingVisitor = new DealiasingTypeVisitor(allObjects);
-
-                parsed.services().forEach((serviceName, service) -> {
-                    servicesBuilder.add(
-                            parseService(
-                                    service,
-                                    TypeName.of(serviceName.name(), parseConjurePackage(service.conjurePackage())),
-                                    typeResolver,
-                                    dealiasingVisitor));
-                });
-
-                typesBuilder.addAll(objects.values());
-                errorsBuilder.addAll(parseErrors(parsed.types().definitions(), typeResolver));
-            } catch (RuntimeException e) {
-                throw new RuntimeException(
-                        String.format("Encountered error trying to parse file '%s'", annotatedParsed.sourceFile()), e);
-            }
+        fragments.forEach(fragment -> {
+            servicesBuilder.addAll(fragment.getServices());
+            errorsBuilder.addAll(fragment.getErrors());
+            typesBuilder.addAll(fragment.getTypes());
         });
 
-        ConjureDefinition definition = ConjureDefinition.builder()
+        return ConjureDefinition.builder()
                 .version(Conjure.SUPPORTED_IR_VERSION)
                 .types(typesBuilder.build())
                 .errors(errorsBuilder.build())
                 .services(servicesBuilder.build())
                 .build();
+    }
 
-        ConjureDefinitionValidator.validateAll(definition);
-        return definition;
+    private static List<ConjureDefinition> parseConjureFilesConcurrently(
+            Collection<AnnotatedConjureSourceFile> annotatedParsedDefs, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<CompletableFuture<ConjureDefinition>> futures = annotatedParsedDefs.stream()
+                    .map(annotatedParsed -> CompletableFuture
+                            .supplyAsync(() -> parseConjureFile(annotatedParsed, false), pool)
+                            .thenCompose(parsed -> parsed.validateAsync(pool)))
+                    .collect(Collectors.toList());
+            List<ConjureDefinition> fragments = new ArrayList<>(futures.size());
+            for (CompletableFuture<ConjureDefinition> future : futures) {
+                fragments.add(future.join());
+            }
+            return fragments;
+        } catch (CompletionException e) {
+            // rethrow the per-file 'Encountered error trying to parse file' exception, as the sequential path would
+            Throwables.throwIfUnchecked(e.getCause());
+            throw e;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static List<Optional<ConjureDefinition>> collectResults(
+            List<CompletableFuture<FileResult>> futures, List<ConjureDiagnostic> diagnostics) {
+        List<Optional<ConjureDefinition>> fragments = new ArrayList<>(futures.size());
+        for (CompletableFuture<FileResult> future : futures) {
+            FileResult result = future.join();
+            diagnostics.addAll(result.diagnostics);
+            fragments.add(Optional.ofNullable(result.fragment));
+        }
+        return fragments;
+    }
+
+    /** Converts and validates a single source file, collecting its errors rather than throwing them. */
+    private static CompletableFuture<FileResult> collectConjureFile(
+            AnnotatedConjureSourceFile annotatedParsed, Executor executor) {
+        ParsedFile parsed;
+        try {
+            parsed = parseConjureFile(annotatedParsed, false);
+        } catch (RuntimeException e) {
+            // the diagnostic names the file, so report the cause rather than the 'Encountered error' wrapper
+            ConjureDiagnostic diagnostic = ConjureDiagnostic.builder()
+                    .ruleId(ConjureDiagnostic.CONVERSION)
+                    .file(annotatedParsed.sourceFile())
+                    .message(String.valueOf(e.getCause().getMessage()))
+                    .build();
+            return CompletableFuture.completedFuture(new FileResult(null, ImmutableList.of(diagnostic)));
+        }
+        return parsed.collectAsync(executor).thenApply(diagnostics -> new FileResult(parsed.fragment, diagnostics));
+    }
+
+    private static final class FileResult {
+        /** Null if the file failed to convert. */
+        private final ConjureDefinition fragment;
+        private final List<ConjureDiagnostic> diagnostics;
+
+        private FileResult(ConjureDefinition fragment, List<ConjureDiagnostic> diagnostics) {
+            this.fragment = fragment;
+            this.diagnostics = diagnostics;
+        }
+    }
+
+    /**
+     * A source file converted into a definition fragment holding just the types, errors and services declared in that
+     * file, together with the validations of its endpoints and services which are still to be run, if any.
+     */
+    private static final class ParsedFile {
+        private final AnnotatedConjureSourceFile annotatedParsed;
+        private final ConjureDefinition fragment;
+        /**
+         * Validations of each service, preceded by those of its endpoints, in declaration order; empty if they already
+         * ran while converting the file.
+         */
+        private final List<Validation> validations;
+
+        private ParsedFile(
+                AnnotatedConjureSourceFile annotatedParsed, ConjureDefinition fragment, List<Validation> validations) {
+            this.annotatedParsed = annotatedParsed;
+            this.fragment = fragment;
+            this.validations = validations;
+        }
+
+        private void validate(Validation validation) {
+            try {
+                validation.validateAll.run();
+            } catch (RuntimeException e) {
+                throw parseError(annotatedParsed, e);
+            }
+        }
+
+        /**
+         * Runs all validations concurrently. The returned future fails with the error of the first failing validation
+         * in declaration order.
+         */
+        CompletableFuture<ConjureDefinition> validateAsync(Executor executor) {
+            List<CompletableFuture<Void>> results = validations.stream()
+                    .map(validation -> CompletableFuture.runAsync(() -> validate(validation), executor))
+                    .collect(Collectors.toList());
+            return CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0]))
+                    .handle((ignored, error) -> {
+                        // all validations have completed, so this does not block
+                        results.forEach(CompletableFuture::join);
+                        return fragment;
+                    });
+        }
+
+        /**
+         * Runs all validations concurrently, collecting a diagnostic for every violated rule. Diagnostics are ordered
+         * like the validations, so the result does not depend on the executor.
+         */
+        CompletableFuture<List<ConjureDiagnostic>> collectAsync(Executor executor) {
+            List<CompletableFuture<List<ConjureDiagnostic>>> results = validations.stream()
+                    .map(validation -> CompletableFuture.supplyAsync(() -> collect(validation), executor))
+                    .collect(Collectors.toList());
+            return CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0]))
+                    .thenApply(ignored -> results.stream()
+                            .flatMap(result -> result.join().stream())
+                            .collect(Collectors.toList()));
+        }
+
+        private List<ConjureDiagnostic> collect(Validation validation) {
+            return validation.collectAll.get().stream()
+                    .map(diagnostic -> ConjureDiagnostic.builder()
+                            .from(diagnostic)
+                            .file(annotatedParsed.sourceFile())
+                            .subject(validation.subject)
+                            .build())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /** The rules of a single endpoint or service, which can either be validated or have all violations collected. */
+    private static final class Validation {
+        /** The validated endpoint or service, e.g. {@code MyService.getFoo} or {@code MyService}. */
+        private final String subject;
+        private final Runnable validateAll;
+        private final Supplier<List<ConjureDiagnostic>> collectAll;
+
+        private Validation(String subject, Runnable validateAll, Supplier<List<ConjureDiagnostic>> collectAll) {
+            this.subject = subject;
+            this.validateAll = validateAll;
+            this.collectAll = collectAll;
+        }
+    }
+
+    /**
+     * Converts a single source file; conversion errors are thrown here. If {@code validateInline}, each endpoint and
+     * service is validated right after it is converted and its errors are thrown here too, as they occur; otherwise
+     * the validations are left to the result.
+     */
+    private static ParsedFile parseConjureFile(AnnotatedConjureSourceFile annotatedParsed, boolean validateInline) {
+        ConjureSourceFile parsed = annotatedParsed.conjureSourceFile();
+
+        try {
+            ConjureTypeParserVisitor.ReferenceTypeResolver typeResolver =
+                    new ConjureTypeParserVisitor.ByParsedRepresentationTypeNameResolver(parsed.types());
+
+            // Resolve objects first, so we can use them in service validations
+            Map<TypeName, TypeDefinition> objects = parseObjects(parsed.types(), typeResolver);
+            Map<TypeName, TypeDefinition> importedObjects = parseImportObjects(parsed.types().conjureImports());
+            Map<TypeName, TypeDefinition> allObjects = new HashMap<>();
+            allObjects.putAll(objects);
+            allObjects.putAll(importedObjects);
+
+            DealiasingTypeVisitor dealiasingVisitor = new DealiasingTypeVisitor(allObjects);
+
+            List<ServiceDefinition> services = new ArrayList<>();
+            List<Validation> validations = new ArrayList<>();
+            Consumer<Validation> scheduler =
+                    validateInline ? validation -> validation.validateAll.run() : validations::add;
+            parsed.services().forEach((serviceName, service) -> {
+                TypeName serviceTypeName =
+                        TypeName.of(serviceName.name(), parseConjurePackage(service.conjurePackage()));
+                String serviceSubject = serviceTypeName.getName();
+                ServiceDefinition serviceDef = parseService(
+                        service,
+                        serviceTypeName,
+                        typeResolver,
+                        endpoint -> scheduler.accept(new Validation(
+                                serviceSubject + "." + endpoint.getEndpointName().get(),
+                                () -> EndpointDefinitionValidator.validateAll(endpoint, dealiasingVisitor),
+                                () -> EndpointDefinitionValidator.collectAll(endpoint, dealiasingVisitor))));
+                services.add(serviceDef);
+                scheduler.accept(new Validation(
+                        serviceSubject,
+                        () -> ServiceDefinitionValidator.validateAll(serviceDef),
+                        () -> ServiceDefinitionValidator.collectAll(serviceDef)));
+            });
+
+            ConjureDefinition fragment = ConjureDefinition.builder()
+                    .version(Conjure.SUPPORTED_IR_VERSION)
+                    .types(objects.values())
+                    .errors(parseErrors(parsed.types().definitions(), typeResolver))
+                    .services(services)
+                    .build();
+            return new ParsedFile(annotatedParsed, fragment, validations);
+        } catch (RuntimeException e) {
+            throw parseError(annotatedParsed, e);
+        }
+    }
+
+    private static RuntimeException parseError(AnnotatedConjureSourceFile annotatedParsed, RuntimeException cause) {
+        return new RuntimeException(
+                String.format("Encountered error trying to parse file '%s'", annotatedParsed.sourceFile()), cause);
     }
 
     /*
@@ -255,28 +519,31 @@ public final class ConjureParserUtils {
         return allDefinitions;
     }
 
+    /**
+     * Converts a service, passing each endpoint to {@code endpointConverted} as soon as it is converted; validating
+     * the service and its endpoints is left to the caller.
+     */
     static ServiceDefinition parseService(
             com.palantir.conjure.parser.services.ServiceDefinition parsed,
             TypeName serviceName,
             ReferenceTypeResolver typeResolver,
-            DealiasingTypeVisitor dealiasingVisitor) {
+            Consumer<EndpointDefinition> endpointConverted) {
         List<EndpointDefinition> endpoints = new ArrayList<>();
-        parsed.endpoints().forEach((name, def) -> endpoints.add(
-                ConjureParserUtils.parseEndpoint(
-                        name,
-                        def,
-                        parsed.basePath(),
-                        parseAuthType(parsed.defaultAuth()),
-                        typeResolver,
-                        dealiasingVisitor)));
-        ServiceDefinition service = ServiceDefinition.builder()
+        parsed.endpoints().forEach((name, def) -> {
+            EndpointDefinition endpoint = ConjureParserUtils.parseEndpoint(
+                    name,
+                    def,
+                    parsed.basePath(),
+                    parseAuthType(parsed.defaultAuth()),
+                    typeResolver);
+            endpointConverted.accept(endpoint);
+            endpoints.add(endpoint);
+        });
+        return ServiceDefinition.builder()
                 .serviceName(serviceName)
                 .docs(parsed.docs().map(Documentation::of))
                 .addAllEndpoints(endpoints)
                 .build();
-
-        ServiceDefinitionValidator.validateAll(service);
-        return service;
     }
 
     static Map<TypeName, TypeDefinition> parseObjects(
@@ -293,14 +560,31 @@ public final class ConjureParserUtils {
                         .collect(Collectors.toMap(td -> td.accept(TypeDefinitionVisitor.TYPE_NAME), td -> td));
     }
 
+    /**
+     * Returns the names of the types declared in the given file without converting them, so that they are known even
+     * if the file fails to convert. Types without a package are left out, as no reference can resolve to them.
+     */
+    static Set<TypeName> declaredTypeNames(AnnotatedConjureSourceFile annotatedParsed) {
+        NamedTypesDefinition definitions = annotatedParsed.conjureSourceFile().types().definitions();
+        Optional<String> defaultPackage = definitions.defaultConjurePackage().map(ConjurePackage::name);
+        Set<TypeName> names = new HashSet<>();
+        definitions.objects().forEach((name, def) -> {
+            Optional<String> packageName = def.conjurePackage().isPresent()
+                    ? def.conjurePackage().map(ConjurePackage::name)
+                    : defaultPackage;
+            packageName.ifPresent(p -> names.add(TypeName.of(name.name(), p)));
+        });
+        return names;
+    }
+
     static List<ErrorDefinition> parseErrors(
             NamedTypesDefinition defs,
             ConjureTypeParserVisitor.ReferenceTypeResolver typeResolver) {
         Optional<String> defaultPackage = defs.defaultConjurePackage().map(p -> p.name());
         ImmutableList.Builder<ErrorDefinition> errorsBuidler = ImmutableList.builder();
         errorsBuidler.addAll(defs.errors().entrySet().stream().map(entry -> {
-            TypeName typeName = TypeName.of(
-                    entry.getKey().name(), parsePackageOrElseThrow(entry.getValue().conjurePackage(), defaultPackage));
+            TypeName typeName = TypeInterner.intern(TypeName.of(
+                    entry.getKey().name(), parsePackageOrElseThrow(entry.getValue().conjurePackage(), defaultPackage)));
             return parseErrorType(typeName, entry.getValue(), typeResolver);
         }).collect(Collectors.toList()));
         return errorsBuidler.build();
@@ -346,11 +630,10 @@ public final class ConjureParserUtils {
             com.palantir.conjure.parser.services.EndpointDefinition def,
             PathString basePath,
             Optional<AuthType> defaultAuth,
-            ReferenceTypeResolver typeResolver,
-            DealiasingTypeVisitor dealiasingVisitor) {
+            ReferenceTypeResolver typeResolver) {
 
         HttpPath httpPath = parseHttpPath(def, basePath);
-        EndpointDefinition endpoint = EndpointDefinition.builder()
+        return EndpointDefinition.builder()
                 .endpointName(EndpointName.of(name))
                 .httpMethod(HttpMethod.valueOf(def.http().method()))
                 .httpPath(httpPath)
@@ -361,9 +644,6 @@ public final class ConjureParserUtils {
                 .docs(def.docs().map(Documentation::of))
                 .deprecated(def.deprecated().map(Documentation::of))
                 .build();
-
-        EndpointDefinitionValidator.validateAll(endpoint, dealiasingVisitor);
-        return endpoint;
     }
 
     private static HttpPath parseHttpPath(
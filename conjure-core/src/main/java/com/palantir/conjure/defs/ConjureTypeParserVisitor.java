@@ -37,7 +37,10 @@ import com.palantir.conjure.spec.Type;
 import com.palantir.conjure.spec.TypeName;
 import java.util.Optional;
 
-/** The core translator between parsed/raw types and the IR spec representation exposed to compilers. */
+/**
+ * The core translator between parsed/raw types and the IR spec representation exposed to compilers. All returned types
+ * are canonicalized through {@link TypeInterner}.
+ */
 public final class ConjureTypeParserVisitor implements ConjureTypeVisitor<Type> {
 
     public interface ReferenceTypeResolver {
@@ -85,15 +88,16 @@ public final class ConjureTypeParserVisitor implements ConjureTypeVisitor<Type>
                 conjurePackage = externalPath.substring(0, lastIndex);
                 typeName = externalPath.substring(lastIndex + 1);
 
-                return Type.external(ExternalReference.builder()
-                        .externalReference(TypeName.of(typeName, conjurePackage))
+                return TypeInterner.intern(Type.external(ExternalReference.builder()
+                        .externalReference(TypeInterner.intern(TypeName.of(typeName, conjurePackage)))
                         .fallback(ConjureParserUtils.parsePrimitiveType(maybeExternalDef.baseType()))
-                        .build());
+                        .build()));
             } else {
                 // Conjure-defined object
                 conjurePackage = ConjureParserUtils.parsePackageOrElseThrow(
                         maybeDirectDef.conjurePackage(), defaultPackage);
-                return Type.reference(TypeName.of(name.name(), conjurePackage));
+                return TypeInterner.intern(
+                        Type.reference(TypeInterner.intern(TypeName.of(name.name(), conjurePackage))));
             }
         }
     }
@@ -106,23 +110,24 @@ public final class ConjureTypeParserVisitor implements ConjureTypeVisitor<Type>
 
     @Override
     public Type visitAny(AnyType _type) {
-        return Type.primitive(com.palantir.conjure.spec.PrimitiveType.ANY);
+        return TypeInterner.intern(Type.primitive(com.palantir.conjure.spec.PrimitiveType.ANY));
     }
 
     @Override
     public Type visitList(ListType type) {
-        return Type.list(com.palantir.conjure.spec.ListType.of(type.itemType().visit(this)));
+        return TypeInterner.intern(Type.list(com.palantir.conjure.spec.ListType.of(type.itemType().visit(this))));
     }
 
     @Override
     public Type visitMap(MapType type) {
-        return Type.map(com.palantir.conjure.spec.MapType.of(
-                type.keyType().visit(this), type.valueType().visit(this)));
+        return TypeInterner.intern(Type.map(com.palantir.conjure.spec.MapType.of(
+                type.keyType().visit(this), type.valueType().visit(this))));
     }
 
     @Override
     public Type visitOptional(OptionalType type) {
-        return Type.optional(com.palantir.conjure.spec.OptionalType.of(type.itemType().visit(this)));
+        return TypeInterner.intern(
+                Type.optional(com.palantir.conjure.spec.OptionalType.of(type.itemType().visit(this))));
     }
 
     @Override
@@ -142,16 +147,16 @@ public final class ConjureTypeParserVisitor implements ConjureTypeVisitor<Type>
 
     @Override
     public Type visitSet(SetType type) {
-        return Type.set(com.palantir.conjure.spec.SetType.of(type.itemType().visit(this)));
+        return TypeInterner.intern(Type.set(com.palantir.conjure.spec.SetType.of(type.itemType().visit(this))));
     }
 
     @Override
     public Type visitBinary(BinaryType _type) {
-        return Type.primitive(com.palantir.conjure.spec.PrimitiveType.BINARY);
+        return TypeInterner.intern(Type.primitive(com.palantir.conjure.spec.PrimitiveType.BINARY));
     }
 
     @Override
     public Type visitDateTime(DateTimeType _type) {
-        return Type.primitive(com.palantir.conjure.spec.PrimitiveType.DATETIME);
+        return TypeInterner.intern(Type.primitive(com.palantir.conjure.spec.PrimitiveType.DATETIME));
     }
 }
@@ -0,0 +1,210 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure.defs;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.google.common.base.Suppliers;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.palantir.conjure.parser.AnnotatedConjureSourceFile;
+import com.palantir.conjure.parser.types.reference.ConjureImports;
+import com.palantir.conjure.spec.ConjureDefinition;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent, on-disk cache of the {@link ConjureDefinition} fragments converted from individual source files.
+ *
+ * <p>Entries are stored under a key derived from the build of Conjure and the path of the source file, so that each
+ * source file has at most one entry, which is replaced whenever the file is converted again. Each entry records the
+ * hash of the source file and the hashes of all files transitively imported by it, and is only used if none of those
+ * have changed, so that a change to an imported file invalidates every file that depends on it.
+ *
+ * <p>Instances are not thread-safe.
+ */
+final class FragmentCache {
+    private static final Logger log = LoggerFactory.getLogger(FragmentCache.class);
+
+    /**
+     * Identifies the build of Conjure which converts the fragments: its version if it is a release, and otherwise a
+     * hash of its classes, as unreleased builds have no version which tells them apart.
+     */
+    private static final Supplier<Optional<String>> BUILD = Suppliers.memoize(FragmentCache::identifyBuild);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new Jdk8Module())
+            .setSerializationInclusion(JsonInclude.Include.NON_ABSENT);
+
+    private final Path cacheDir;
+    private final String build;
+    /** Hashes of the files seen in this compilation; many source files share the same imports. */
+    private final Map<String, String> fileHashes = new HashMap<>();
+
+    FragmentCache(File cacheDir, String build) {
+        this.cacheDir = cacheDir.toPath();
+        this.build = build;
+    }
+
+    /**
+     * Returns a cache in the given directory for the fragments converted by this build of Conjure, or nothing if the
+     * build cannot be identified, so that fragments converted by different builds are never mixed up.
+     */
+    static Optional<FragmentCache> create(File cacheDir) {
+        Optional<FragmentCache> cache = BUILD.get().map(build -> new FragmentCache(cacheDir, build));
+        if (!cache.isPresent()) {
+            log.warn("Not caching conjure definitions, as the build of Conjure cannot be identified");
+        }
+        return cache;
+    }
+
+    /** Returns the cached fragment for the given source file, if there is one that is still up to date. */
+    Optional<ConjureDefinition> get(File file) {
+        Path entryFile = entryFile(file);
+        if (!Files.isRegularFile(entryFile)) {
+            return Optional.empty();
+        }
+
+        FragmentCacheEntry entry;
+        try {
+            entry = MAPPER.readValue(entryFile.toFile(), FragmentCacheEntry.class);
+        } catch (IOException e) {
+            log.debug("Ignoring unreadable cache entry {}", entryFile, e);
+            return Optional.empty();
+        }
+
+        if (!hash(file.toPath()).equals(entry.hash())) {
+            return Optional.empty();
+        }
+        for (Map.Entry<String, String> imported : entry.imports().entrySet()) {
+            Path importedFile = Paths.get(imported.getKey());
+            if (!Files.isRegularFile(importedFile) || !hash(importedFile).equals(imported.getValue())) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(entry.fragment());
+    }
+
+    /** Stores the fragment converted from the given source file. */
+    void put(AnnotatedConjureSourceFile sourceFile, ConjureDefinition fragment) {
+        Map<String, String> imports = new TreeMap<>();
+        collectImports(sourceFile.sourceFile().toPath().toAbsolutePath().getParent(),
+                sourceFile.conjureSourceFile().types().conjureImports(), imports);
+        FragmentCacheEntry entry = FragmentCacheEntry.builder()
+                .hash(hash(sourceFile.sourceFile().toPath()))
+                .imports(imports)
+                .fragment(fragment)
+                .build();
+
+        Path entryFile = entryFile(sourceFile.sourceFile());
+        try {
+            Files.createDirectories(cacheDir);
+            // write to a temporary file first so that concurrent builds never observe a partially written entry
+            Path tempFile = Files.createTempFile(cacheDir, entryFile.getFileName().toString(), ".tmp");
+            MAPPER.writeValue(tempFile.toFile(), entry);
+            Files.move(tempFile, entryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write cache entry " + entryFile, e);
+        }
+    }
+
+    private void collectImports(
+            Path baseDir, Map<?, ConjureImports> conjureImports, Map<String, String> imports) {
+        conjureImports.values().forEach(conjureImport -> {
+            Path importedFile = baseDir.resolve(conjureImport.file()).normalize();
+            if (imports.put(importedFile.toString(), hash(importedFile)) == null) {
+                collectImports(
+                        importedFile.getParent(), conjureImport.conjure().types().conjureImports(), imports);
+            }
+        });
+    }
+
+    private Path entryFile(File file) {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        String key = Hashing.sha256().newHasher()
+                .putString(build, StandardCharsets.UTF_8)
+                .putString(path.toString(), StandardCharsets.UTF_8)
+                .hash()
+                .toString();
+        return cacheDir.resolve(key + ".json");
+    }
+
+    private String hash(Path file) {
+        Path path = file.toAbsolutePath().normalize();
+        String cached = fileHashes.get(path.toString());
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            String hash = Hashing.sha256().hashBytes(Files.readAllBytes(path)).toString();
+            fileHashes.put(path.toString(), hash);
+            return hash;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read " + path, e);
+        }
+    }
+
+    private static Optional<String> identifyBuild() {
+        String version = Conjure.class.getPackage().getImplementationVersion();
+        if (version != null) {
+            return Optional.of(version);
+        }
+
+        CodeSource codeSource = FragmentCache.class.getProtectionDomain().getCodeSource();
+        if (codeSource == null) {
+            return Optional.empty();
+        }
+        // the location is either a jar or a directory of classes
+        try {
+            Path location = Paths.get(codeSource.getLocation().toURI());
+            List<Path> files;
+            try (Stream<Path> paths = Files.walk(location)) {
+                files = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            Hasher hasher = Hashing.sha256().newHasher();
+            for (Path file : files) {
+                hasher.putString(location.relativize(file).toString(), StandardCharsets.UTF_8);
+                hasher.putBytes(Files.readAllBytes(file));
+            }
+            return Optional.of(hasher.hash().toString());
+        } catch (IOException | UncheckedIOException | URISyntaxException | FileSystemNotFoundException
+                | IllegalArgumentException e) {
+            log.debug("Failed to hash the classes of Conjure at {}", codeSource.getLocation(), e);
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure.defs;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.palantir.conjure.spec.ConjureDefinition;
+import java.util.Map;
+import org.immutables.value.Value;
+
+/** An entry of the {@link FragmentCache}: the IR fragment converted from one source file. */
+@JsonDeserialize(as = ImmutableFragmentCacheEntry.class)
+@JsonSerialize(as = ImmutableFragmentCacheEntry.class)
+@Value.Immutable
+@ConjureImmutablesStyle
+interface FragmentCacheEntry {
+
+    /** Hash of the source file the fragment was converted from. */
+    String hash();
+
+    /**
+     * Hash of each file transitively imported by the source file, keyed by normalized absolute path. The entry is only
+     * valid while all of these still hash to the same value.
+     */
+    Map<String, String> imports();
+
+    ConjureDefinition fragment();
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    class Builder extends ImmutableFragmentCacheEntry.Builder {}
+}
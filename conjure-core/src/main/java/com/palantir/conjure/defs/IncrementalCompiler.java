@@ -0,0 +1,95 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure.defs;
+
+import com.google.common.base.Preconditions;
+import com.palantir.conjure.parser.AnnotatedConjureSourceFile;
+import com.palantir.conjure.parser.ConjureParser;
+import com.palantir.conjure.parser.NormalizeDefinition;
+import com.palantir.conjure.spec.ConjureDefinition;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compiles a set of source files into a {@link ConjureDefinition} and keeps the intermediate state around, so that
+ * after some files change only those files, and the files which transitively import them, are parsed and converted
+ * again. Whole-definition validations always run over the updated definition, as any of them may be affected by a
+ * change to a single file.
+ *
+ * <p>Instances are not thread-safe.
+ */
+public final class IncrementalCompiler {
+    private static final Logger log = LoggerFactory.getLogger(IncrementalCompiler.class);
+
+    private final int threads;
+    private final ConjureParser.Session session = ConjureParser.newSession();
+    /** Converted fragment of each input file, keyed by normalized absolute path. */
+    private final Map<String, ConjureDefinition> fragments = new HashMap<>();
+
+    IncrementalCompiler(int threads) {
+        Preconditions.checkArgument(threads >= 1, "threads must be at least 1: %s", threads);
+        this.threads = threads;
+    }
+
+    /**
+     * Compiles the given files, reusing the results of the previous compilation for every file which is neither in
+     * {@code changedFiles} nor transitively imports one of them. {@code files} is the complete set of input files and
+     * may differ from the previous compilation; {@code changedFiles} may include both input files and imported
+     * files. The result is identical to that of {@link Conjure#parse(Collection)} on the same files.
+     */
+    public ConjureDefinition compile(Collection<File> files, Collection<File> changedFiles) {
+        Set<String> invalidated = session.invalidate(changedFiles);
+        fragments.keySet().removeAll(invalidated);
+
+        List<String> paths = new ArrayList<>(files.size());
+        Map<String, File> staleFiles = new LinkedHashMap<>();
+        for (File file : files) {
+            String path = normalizedPath(file);
+            paths.add(path);
+            if (!fragments.containsKey(path)) {
+                staleFiles.putIfAbsent(path, file);
+            }
+        }
+        // forget files which are no longer part of the compilation
+        fragments.keySet().retainAll(new HashSet<>(paths));
+
+        List<AnnotatedConjureSourceFile> sourceFiles = session.parseAnnotated(staleFiles.values(), threads);
+        Iterator<ConjureDefinition> parsedFragments =
+                ConjureParserUtils.parseConjureFiles(sourceFiles, threads).iterator();
+        staleFiles.keySet().forEach(path -> fragments.put(path, parsedFragments.next()));
+        log.debug("Recompiled {} of {} conjure files", staleFiles.size(), files.size());
+
+        ConjureDefinition ir = ConjureParserUtils.mergeConjureFiles(
+                paths.stream().map(fragments::get).collect(Collectors.toList()));
+        return NormalizeDefinition.normalize(ir);
+    }
+
+    private static String normalizedPath(File file) {
+        return file.toPath().toAbsolutePath().normalize().toString();
+    }
+}
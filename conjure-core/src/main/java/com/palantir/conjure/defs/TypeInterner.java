@@ -0,0 +1,49 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure.defs;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.palantir.conjure.spec.Type;
+import com.palantir.conjure.spec.TypeName;
+
+/**
+ * Canonicalizes the {@link Type}s and {@link TypeName}s created while converting parsed definitions, so that
+ * structurally equal values share a single instance. Large definitions reference the same few types from thousands
+ * of fields and arguments; interning keeps one copy of each on the heap, and lets equality checks between them
+ * succeed on the identity comparison.
+ *
+ * <p>The interners are weak, so values are released once no definition refers to them any more.
+ */
+final class TypeInterner {
+    private static final Interner<Type> TYPES = Interners.newWeakInterner();
+    private static final Interner<TypeName> TYPE_NAMES = Interners.newWeakInterner();
+
+    private TypeInterner() {}
+
+    /**
+     * Returns the canonical instance of the given type. Nested types must already be canonical, which holds for all
+     * types built bottom-up by {@link ConjureTypeParserVisitor}.
+     */
+    static Type intern(Type type) {
+        return TYPES.intern(type);
+    }
+
+    static TypeName intern(TypeName typeName) {
+        return TYPE_NAMES.intern(typeName);
+    }
+}
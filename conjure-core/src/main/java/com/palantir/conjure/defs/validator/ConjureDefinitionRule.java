@@ -0,0 +1,48 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure.defs.validator;
+
+import com.palantir.conjure.spec.ConjureDefinition;
+import com.palantir.conjure.spec.ErrorDefinition;
+import com.palantir.conjure.spec.ServiceDefinition;
+import com.palantir.conjure.spec.TypeDefinition;
+
+/**
+ * A rule over a whole {@link ConjureDefinition}. Rules do not traverse the definition themselves: a single walk visits
+ * its types, errors and services, in that order, and hands each of them to the {@link Checker} of every rule, see
+ * {@link ConjureDefinitionValidator#validateAll(ConjureDefinition)}.
+ */
+@com.google.errorprone.annotations.Immutable
+interface ConjureDefinitionRule {
+    /** Creates a checker holding the state of a single walk over {@code definition}. */
+    Checker newChecker(ConjureDefinition definition, DefinitionIndex index);
+
+    /**
+     * Receives the nodes of a definition. Each method throws if the node violates the rule. When validating, a checker
+     * which has thrown is not called again; when collecting all violations, it keeps receiving the remaining nodes.
+     */
+    interface Checker {
+        default void visitType(TypeDefinition _type) {}
+
+        default void visitError(ErrorDefinition _error) {}
+
+        default void visitService(ServiceDefinition _service) {}
+
+        /** Called after all nodes of the definition have been visited. */
+        default void finish() {}
+    }
+}
@@ -19,30 +19,33 @@ package com.palantir.conjure.defs.validator;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Verify;
-import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Multimap;
 import com.palantir.conjure.defs.Conjure;
 import com.palantir.conjure.spec.AliasDefinition;
 import com.palantir.conjure.spec.ConjureDefinition;
 import com.palantir.conjure.spec.EnumDefinition;
 import com.palantir.conjure.spec.ErrorDefinition;
-import com.palantir.conjure.spec.FieldDefinition;
+import com.palantir.conjure.spec.MapType;
 import com.palantir.conjure.spec.ObjectDefinition;
 import com.palantir.conjure.spec.ServiceDefinition;
 import com.palantir.conjure.spec.Type;
 import com.palantir.conjure.spec.TypeDefinition;
 import com.palantir.conjure.spec.TypeName;
 import com.palantir.conjure.spec.UnionDefinition;
-import com.palantir.conjure.visitor.DealiasingTypeVisitor;
 import com.palantir.conjure.visitor.TypeDefinitionVisitor;
 import com.palantir.conjure.visitor.TypeVisitor;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -55,57 +58,156 @@ public enum ConjureDefinitionValidator implements ConjureValidator<ConjureDefini
     NO_NESTED_OPTIONAL(new NoNestedOptionalValidator()),
     ILLEGAL_MAP_KEYS(new IllegalMapKeyValidator());
 
+    /**
+     * Validates the definition against all rules in a single walk over its types, errors and services. If several
+     * rules are violated, the error of the first of them in declaration order is thrown, as if they had been run one
+     * after another.
+     */
     public static void validateAll(ConjureDefinition definition) {
-        for (ConjureValidator validator : values()) {
-            validator.validate(definition);
-        }
+        validate(definition, Arrays.asList(values()));
+    }
+
+    /**
+     * Validates the definition against all rules, like {@link #validateAll(ConjureDefinition)}, but rather than
+     * throwing the first error, returns every violation found. Violations are ordered by the type, error or service
+     * they were found in, followed by those which concern the definition as a whole, such as recursive types.
+     */
+    public static List<ConjureDiagnostic> collectAll(ConjureDefinition definition) {
+        return collectAll(definition, ImmutableSet.of());
+    }
+
+    /**
+     * Returns every violation of the definition, like {@link #collectAll(ConjureDefinition)}, for a definition which
+     * lacks the types declared in files which failed to convert. Those files were reported already, so references to
+     * {@code unconvertedTypes} are not reported again as types which cannot be resolved.
+     */
+    public static List<ConjureDiagnostic> collectAll(ConjureDefinition definition, Set<TypeName> unconvertedTypes) {
+        List<ConjureDiagnostic> diagnostics = new ArrayList<>();
+        walk(definition, unconvertedTypes, Arrays.asList(values()), (validator, subject, error) -> {
+            diagnostics.add(ConjureDiagnostic.of(validator.name(), subject, error));
+            return true;
+        });
+        return diagnostics;
     }
 
-    private final ConjureValidator<ConjureDefinition> validator;
+    private final ConjureDefinitionRule rule;
 
-    ConjureDefinitionValidator(ConjureValidator<ConjureDefinition> validator) {
-        this.validator = validator;
+    ConjureDefinitionValidator(ConjureDefinitionRule rule) {
+        this.rule = rule;
     }
 
     @Override
     public void validate(ConjureDefinition definition) {
-        validator.validate(definition);
+        validate(definition, ImmutableList.of(this));
+    }
+
+    private static void validate(ConjureDefinition definition, List<ConjureDefinitionValidator> validators) {
+        Map<ConjureDefinitionValidator, RuntimeException> failures = new EnumMap<>(ConjureDefinitionValidator.class);
+        walk(definition, ImmutableSet.of(), validators, (validator, _subject, error) -> {
+            failures.put(validator, error);
+            return false;
+        });
+        if (!failures.isEmpty()) {
+            throw failures.values().iterator().next();
+        }
+    }
+
+    /**
+     * Walks the definition once, handing each node to the checker of every given rule which is still checking, and
+     * reporting violations together with the name of the node they were found in.
+     */
+    private static void walk(
+            ConjureDefinition definition,
+            Set<TypeName> unconvertedTypes,
+            List<ConjureDefinitionValidator> validators,
+            Violations violations) {
+        DefinitionIndex index = DefinitionIndex.of(definition, unconvertedTypes);
+        List<ConjureDefinitionRule.Checker> checkers = validators.stream()
+                .map(validator -> validator.rule.newChecker(definition, index))
+                .collect(Collectors.toList());
+        boolean[] stopped = new boolean[checkers.size()];
+        BiConsumer<Optional<String>, Consumer<ConjureDefinitionRule.Checker>> dispatch = (subject, visit) -> {
+            for (int i = 0; i < stopped.length; i++) {
+                if (!stopped[i]) {
+                    try {
+                        visit.accept(checkers.get(i));
+                    } catch (RuntimeException e) {
+                        stopped[i] = !violations.add(validators.get(i), subject, e);
+                    }
+                }
+            }
+        };
+
+        for (TypeDefinition type : definition.getTypes()) {
+            dispatch.accept(Optional.of(type.accept(TypeDefinitionVisitor.TYPE_NAME).getName()),
+                    checker -> checker.visitType(type));
+        }
+        for (ErrorDefinition error : definition.getErrors()) {
+            dispatch.accept(Optional.of(error.getErrorName().getName()), checker -> checker.visitError(error));
+        }
+        for (ServiceDefinition service : definition.getServices()) {
+            dispatch.accept(Optional.of(service.getServiceName().getName()), checker -> checker.visitService(service));
+        }
+        dispatch.accept(Optional.empty(), ConjureDefinitionRule.Checker::finish);
+    }
+
+    private interface Violations {
+        /** Records a violation of the given rule, returning whether the rule should keep checking the definition. */
+        boolean add(ConjureDefinitionValidator validator, Optional<String> subject, RuntimeException error);
     }
 
     @com.google.errorprone.annotations.Immutable
-    private static final class UniqueServiceNamesValidator implements ConjureValidator<ConjureDefinition> {
+    private static final class UniqueServiceNamesValidator implements ConjureDefinitionRule {
         @Override
-        public void validate(ConjureDefinition definition) {
+        public Checker newChecker(ConjureDefinition _definition, DefinitionIndex _index) {
             Set<String> seenNames = new HashSet<>();
-            definition.getServices().forEach(service -> {
-                boolean isNewName = seenNames.add(service.getServiceName().getName());
-                Preconditions.checkState(isNewName,
-                        "Service names must be unique: %s", service.getServiceName().getName());
-            });
+            return new Checker() {
+                @Override
+                public void visitService(ServiceDefinition service) {
+                    boolean isNewName = seenNames.add(service.getServiceName().getName());
+                    Preconditions.checkState(isNewName,
+                            "Service names must be unique: %s", service.getServiceName().getName());
+                }
+            };
         }
     }
 
     @com.google.errorprone.annotations.Immutable
-    private static final class IllegalVersionValidator implements ConjureValidator<ConjureDefinition> {
+    private static final class IllegalVersionValidator implements ConjureDefinitionRule {
         @Override
-        public void validate(ConjureDefinition definition) {
-            Preconditions.checkState(definition.getVersion() == Conjure.SUPPORTED_IR_VERSION,
-                    "Definition version must be %s, but version %s is provided instead.",
-                    Conjure.SUPPORTED_IR_VERSION, definition.getVersion());
+        public Checker newChecker(ConjureDefinition definition, DefinitionIndex _index) {
+            return new Checker() {
+                @Override
+                public void finish() {
+                    Preconditions.checkState(definition.getVersion() == Conjure.SUPPORTED_IR_VERSION,
+                            "Definition version must be %s, but version %s is provided instead.",
+                            Conjure.SUPPORTED_IR_VERSION, definition.getVersion());
+                }
+            };
         }
     }
 
     @com.google.errorprone.annotations.Immutable
-    private static final class UniqueNamesValidator implements ConjureValidator<ConjureDefinition> {
+    private static final class UniqueNamesValidator implements ConjureDefinitionRule {
         @Override
-        public void validate(ConjureDefinition definition) {
+        public Checker newChecker(ConjureDefinition _definition, DefinitionIndex _index) {
             Set<TypeName> seenNames = new HashSet<>();
-            definition.getTypes().forEach(typeDef ->
-                    verifyNameIsUnique(seenNames, typeDef.accept(TypeDefinitionVisitor.TYPE_NAME)));
-            definition.getErrors().forEach(errorDef ->
-                    verifyNameIsUnique(seenNames, errorDef.getErrorName()));
-            definition.getServices().forEach(serviceDef ->
-                    verifyNameIsUnique(seenNames, serviceDef.getServiceName()));
+            return new Checker() {
+                @Override
+                public void visitType(TypeDefinition typeDef) {
+                    verifyNameIsUnique(seenNames, typeDef.accept(TypeDefinitionVisitor.TYPE_NAME));
+                }
+
+                @Override
+                public void visitError(ErrorDefinition errorDef) {
+                    verifyNameIsUnique(seenNames, errorDef.getErrorName());
+                }
+
+                @Override
+                public void visitService(ServiceDefinition serviceDef) {
+                    verifyNameIsUnique(seenNames, serviceDef.getServiceName());
+                }
+            };
         }
 
         private static void verifyNameIsUnique(Set<TypeName> seenNames, TypeName name) {
@@ -118,72 +220,44 @@ public enum ConjureDefinitionValidator implements ConjureValidator<ConjureDefini
     }
 
     @com.google.errorprone.annotations.Immutable
-    private static final class NoRecursiveTypesValidator implements ConjureValidator<ConjureDefinition> {
+    private static final class NoRecursiveTypesValidator implements ConjureDefinitionRule {
         @Override
-        public void validate(ConjureDefinition definition) {
-            // create mapping from object type name -> names of reference types that are fields of that type
-            Multimap<TypeName, TypeName> typeToRefFields = HashMultimap.create();
-
-            definition.getTypes().forEach(type -> getReferenceType(type).ifPresent(entry ->
-                    typeToRefFields.put(type.accept(TypeDefinitionVisitor.TYPE_NAME), entry)));
-
-            for (TypeName name : typeToRefFields.keySet()) {
-                verifyTypeHasNoRecursiveDefinitions(name, typeToRefFields, new ArrayList<>());
-            }
-        }
-
-        private static Optional<TypeName> getReferenceType(TypeDefinition typeDef) {
-            if (typeDef.accept(TypeDefinitionVisitor.IS_OBJECT)) {
-                ObjectDefinition objectDef = typeDef.accept(TypeDefinitionVisitor.OBJECT);
-                for (FieldDefinition currField : objectDef.getFields()) {
-                    Optional<TypeName> referenceType = resolveReferenceType(currField.getType());
-                    if (referenceType.isPresent()) {
-                        return referenceType;
+        public Checker newChecker(ConjureDefinition _definition, DefinitionIndex index) {
+            return new Checker() {
+                @Override
+                public void finish() {
+                    List<List<TypeName>> cycles = index.referenceGraph().requiredCycles();
+                    if (!cycles.isEmpty()) {
+                        throw new IllegalStateException("Illegal recursive data type: " + cycles.stream()
+                                .map(cycle -> Joiner.on(" -> ").join(Lists.transform(cycle, TypeName::getName)))
+                                .collect(Collectors.joining("; ")));
                     }
                 }
-            } else if (typeDef.accept(TypeDefinitionVisitor.IS_ALIAS)) {
-                AliasDefinition aliasDef = typeDef.accept(TypeDefinitionVisitor.ALIAS);
-                return resolveReferenceType(aliasDef.getAlias());
-            }
-            return Optional.empty();
-        }
-
-        private static Optional<TypeName> resolveReferenceType(Type type) {
-            if (type.accept(TypeVisitor.IS_REFERENCE)) {
-                return Optional.of(type.accept(TypeVisitor.REFERENCE));
-            } else if (type.accept(TypeVisitor.IS_PRIMITIVE)) {
-                return Optional.of(
-                        TypeName.of(type.accept(TypeVisitor.PRIMITIVE).get().name(), ""));
-            }
-            return Optional.empty();
-        }
-
-        private void verifyTypeHasNoRecursiveDefinitions(
-                TypeName typeName, Multimap<TypeName, TypeName> typeMap, List<TypeName> path) {
-            if (path.contains(typeName)) {
-                path.add(typeName);
-                throw new IllegalStateException("Illegal recursive data type: "
-                        + Joiner.on(" -> ").join(Lists.transform(path, TypeName::getName)));
-            }
-
-            path.add(typeName);
-            for (TypeName currField : typeMap.get(typeName)) {
-                verifyTypeHasNoRecursiveDefinitions(currField, typeMap, path);
-            }
-            path.remove(path.size() - 1);
+            };
         }
     }
 
     @com.google.errorprone.annotations.Immutable
-    public static final class NoNestedOptionalValidator implements ConjureValidator<ConjureDefinition> {
+    private static final class NoNestedOptionalValidator implements ConjureDefinitionRule {
         @Override
-        public void validate(ConjureDefinition definition) {
-            // create mapping for resolving reference types during validation
-            Map<TypeName, TypeDefinition> definitionMap = definition.getTypes().stream().collect(
-                    Collectors.toMap(entry -> entry.accept(TypeDefinitionVisitor.TYPE_NAME), entry -> entry));
-            definition.getTypes().forEach(def -> validateTypeDefinition(def, definitionMap));
-            definition.getErrors().forEach(def -> validateErrorDefinition(def, definitionMap));
-            definition.getServices().forEach(def -> validateServiceDefinition(def, definitionMap));
+        public Checker newChecker(ConjureDefinition _definition, DefinitionIndex index) {
+            Map<TypeName, TypeDefinition> definitionMap = index.types();
+            return new Checker() {
+                @Override
+                public void visitType(TypeDefinition def) {
+                    validateTypeDefinition(def, definitionMap);
+                }
+
+                @Override
+                public void visitError(ErrorDefinition def) {
+                    validateErrorDefinition(def, definitionMap);
+                }
+
+                @Override
+                public void visitService(ServiceDefinition def) {
+                    validateServiceDefinition(def, definitionMap);
+                }
+            };
         }
 
         private static void validateServiceDefinition(ServiceDefinition serviceDef,
@@ -274,42 +348,68 @@ public enum ConjureDefinitionValidator implements ConjureValidator<ConjureDefini
 
         private static boolean recursivelyFindNestedOptionals(
                 Type type, Map<TypeName, TypeDefinition> definitionMap, boolean isOptionalSeen) {
+            return recursivelyFindNestedOptionals(type, definitionMap, isOptionalSeen, new HashSet<>());
+        }
+
+        /**
+         * {@code visitedAliases} holds the aliases on the current path. Recursive aliases are reported by
+         * {@link NoRecursiveTypesValidator}, which runs after all types were visited, so stop following them here.
+         */
+        private static boolean recursivelyFindNestedOptionals(
+                Type type,
+                Map<TypeName, TypeDefinition> definitionMap,
+                boolean isOptionalSeen,
+                Set<TypeName> visitedAliases) {
             if (type.accept(TypeVisitor.IS_REFERENCE)) {
-                TypeDefinition referenceDefinition = definitionMap.get(type.accept(TypeVisitor.REFERENCE));
+                TypeName reference = type.accept(TypeVisitor.REFERENCE);
+                TypeDefinition referenceDefinition = definitionMap.get(reference);
                 // we only care about reference of alias type
-                if (referenceDefinition != null && referenceDefinition.accept(TypeDefinitionVisitor.IS_ALIAS)) {
+                if (referenceDefinition != null && referenceDefinition.accept(TypeDefinitionVisitor.IS_ALIAS)
+                        && visitedAliases.add(reference)) {
                     AliasDefinition aliasDef = referenceDefinition.accept(TypeDefinitionVisitor.ALIAS);
-                    return recursivelyFindNestedOptionals(aliasDef.getAlias(), definitionMap, isOptionalSeen);
+                    return recursivelyFindNestedOptionals(
+                            aliasDef.getAlias(), definitionMap, isOptionalSeen, visitedAliases);
                 }
             } else if (type.accept(TypeVisitor.IS_OPTIONAL)) {
                 if (isOptionalSeen) {
                     return true;
                 }
                 return recursivelyFindNestedOptionals(type.accept(TypeVisitor.OPTIONAL).getItemType(), definitionMap,
-                        true);
+                        true, visitedAliases);
             }
             return false;
         }
     }
 
     @com.google.errorprone.annotations.Immutable
-    private static final class IllegalMapKeyValidator implements ConjureValidator<ConjureDefinition> {
+    private static final class IllegalMapKeyValidator implements ConjureDefinitionRule {
 
         @Override
-        public void validate(ConjureDefinition definition) {
-            // create mapping for resolving reference types during validation
-            Map<TypeName, TypeDefinition> definitionMap = definition.getTypes().stream().collect(
-                    Collectors.toMap(entry -> entry.accept(TypeDefinitionVisitor.TYPE_NAME), entry -> entry));
-            definition.getTypes().forEach(def -> validateTypeDefinition(def, definitionMap));
-            definition.getErrors().forEach(def -> validateErrorDefinition(def, definitionMap));
-            definition.getServices().forEach(def -> validateServiceDefinition(def, definitionMap));
+        public Checker newChecker(ConjureDefinition _definition, DefinitionIndex index) {
+            DealiasedTypes dealiasedTypes = index.dealiasedTypes();
+            return new Checker() {
+                @Override
+                public void visitType(TypeDefinition def) {
+                    validateTypeDefinition(def, dealiasedTypes);
+                }
+
+                @Override
+                public void visitError(ErrorDefinition def) {
+                    validateErrorDefinition(def, dealiasedTypes);
+                }
+
+                @Override
+                public void visitService(ServiceDefinition def) {
+                    validateServiceDefinition(def, dealiasedTypes);
+                }
+            };
         }
 
         private static void validateServiceDefinition(ServiceDefinition serviceDef,
-                Map<TypeName, TypeDefinition> definitionMap) {
+                DealiasedTypes dealiasedTypes) {
             serviceDef.getEndpoints().forEach(endpoint -> {
                 endpoint.getArgs().stream()
-                        .filter(arg -> recursivelyFindIllegalKeys(arg.getType(), definitionMap, false))
+                        .filter(arg -> recursivelyFindIllegalKeys(arg.getType(), dealiasedTypes, false))
                         .findAny()
                         .ifPresent(arg -> {
                             throw new IllegalStateException(
@@ -317,7 +417,7 @@ public enum ConjureDefinitionValidator implements ConjureValidator<ConjureDefini
                                             + endpoint.getEndpointName().get());
                         });
                 endpoint.getReturns().ifPresent(returnType -> {
-                    if (recursivelyFindIllegalKeys(returnType, definitionMap, false)) {
+                    if (recursivelyFindIllegalKeys(returnType, dealiasedTypes, false)) {
                         throw new IllegalStateException(
                                 "Illegal map key found in return type of endpoint "
                                         + endpoint.getEndpointName().get());
@@ -327,9 +427,9 @@ public enum ConjureDefinitionValidator implements ConjureValidator<ConjureDefini
         }
 
         private static void validateErrorDefinition(ErrorDefinition errorDef,
-                Map<TypeName, TypeDefinition> definitionMap) {
+                DealiasedTypes dealiasedTypes) {
             Stream.concat(errorDef.getSafeArgs().stream(), errorDef.getUnsafeArgs().stream())
-                    .filter(arg -> recursivelyFindIllegalKeys(arg.getType(), definitionMap, false))
+                    .filter(arg -> recursivelyFindIllegalKeys(arg.getType(), dealiasedTypes, false))
                     .findAny()
                     .ifPresent(arg -> {
                         throw new IllegalStateException(
@@ -339,13 +439,13 @@ public enum ConjureDefinitionValidator implements ConjureValidator<ConjureDefini
         }
 
         private static void validateTypeDefinition(TypeDefinition typeDef,
-                Map<TypeName, TypeDefinition> definitionMap) {
+                DealiasedTypes dealiasedTypes) {
 
             typeDef.accept(new TypeDefinition.Visitor<Void>() {
                 @Override
                 public Void visitAlias(AliasDefinition _value) {
                     AliasDefinition aliasDef = typeDef.accept(TypeDefinitionVisitor.ALIAS);
-                    if (recursivelyFindIllegalKeys(aliasDef.getAlias(), definitionMap, false)) {
+                    if (recursivelyFindIllegalKeys(aliasDef.getAlias(), dealiasedTypes, false)) {
                         throw new IllegalStateException(
                                 "Illegal map key found in alias " + aliasDef.getTypeName().getName());
                     }
@@ -357,7 +457,7 @@ public enum ConjureDefinitionValidator implements ConjureValidator<ConjureDefini
                     ObjectDefinition objectDefinition = typeDef.accept(TypeDefinitionVisitor.OBJECT);
                     objectDefinition.getFields().stream()
                             .filter(fieldDefinition -> recursivelyFindIllegalKeys(
-                                    fieldDefinition.getType(), definitionMap, false))
+                                    fieldDefinition.getType(), dealiasedTypes, false))
                             .findAny()
                             .ifPresent(found -> {
                                 throw new IllegalStateException(
@@ -372,7 +472,7 @@ public enum ConjureDefinitionValidator implements ConjureValidator<ConjureDefini
                     UnionDefinition unionDefinition = typeDef.accept(TypeDefinitionVisitor.UNION);
                     unionDefinition.getUnion().stream()
                             .filter(fieldDefinition -> recursivelyFindIllegalKeys(
-                                    fieldDefinition.getType(), definitionMap, false))
+                                    fieldDefinition.getType(), dealiasedTypes, false))
                             .findAny()
                             .ifPresent(found -> {
                                 throw new IllegalStateException(
@@ -396,18 +496,23 @@ public enum ConjureDefinitionValidator implements ConjureValidator<ConjureDefini
 
         private static boolean recursivelyFindIllegalKeys(
                 Type type,
-                Map<TypeName, TypeDefinition> definitionMap,
+                DealiasedTypes dealiasedTypes,
                 boolean isMapKey) {
             if (type.accept(TypeVisitor.IS_MAP)) {
                 if (isMapKey) {
                     return true;
                 }
-                return recursivelyFindIllegalKeys(type.accept(TypeVisitor.MAP).getKeyType(), definitionMap, true)
-                        || recursivelyFindIllegalKeys(type.accept(TypeVisitor.MAP).getKeyType(), definitionMap, false);
+                MapType mapType = type.accept(TypeVisitor.MAP);
+                return recursivelyFindIllegalKeys(mapType.getKeyType(), dealiasedTypes, true)
+                        || recursivelyFindIllegalKeys(mapType.getKeyType(), dealiasedTypes, false);
             }
 
             if (isMapKey) {
-                return new DealiasingTypeVisitor(definitionMap).dealias(type).fold(
+                if (dealiasedTypes.isUnconverted(type)) {
+                    // the file declaring the key type failed to convert, which was reported already
+                    return false;
+                }
+                return dealiasedTypes.dealias(type).fold(
                         typeDefinition -> !typeDefinition.accept(TypeDefinitionVisitor.IS_ENUM),
                         subType -> !subType.accept(TypeVisitor.IS_PRIMITIVE) || subType.accept(TypeVisitor.IS_ANY));
             }
@@ -0,0 +1,67 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure.defs.validator;
+
+import com.palantir.conjure.defs.ConjureImmutablesStyle;
+import java.io.File;
+import java.util.Optional;
+import org.immutables.value.Value;
+
+/** A violation of a Conjure rule, found while converting or validating definitions. */
+@Value.Immutable
+@ConjureImmutablesStyle
+public interface ConjureDiagnostic {
+    /**
+     * Identifies the violated rule, e.g. {@code NO_RECURSIVE_TYPES}. Errors found while converting a file, which
+     * are not attributed to a particular rule, have the id {@link #CONVERSION}.
+     */
+    String ruleId();
+
+    /** The file the violation was found in, unless it concerns the definitions of several files. */
+    Optional<File> file();
+
+    /** The type, error, service or endpoint which violates the rule, if any. */
+    Optional<String> subject();
+
+    String message();
+
+    String CONVERSION = "CONVERSION";
+
+    /** Formats this diagnostic on a single line, as {@code <file>: [<ruleId>] <subject>: <message>}. */
+    default String format() {
+        StringBuilder builder = new StringBuilder();
+        file().ifPresent(file -> builder.append(file).append(": "));
+        builder.append('[').append(ruleId()).append("] ");
+        subject().ifPresent(subject -> builder.append(subject).append(": "));
+        return builder.append(message()).toString();
+    }
+
+    class Builder extends ImmutableConjureDiagnostic.Builder {}
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /** Creates a diagnostic, without a file, for an error thrown by the given rule. */
+    static ConjureDiagnostic of(String ruleId, Optional<String> subject, RuntimeException error) {
+        return builder()
+                .ruleId(ruleId)
+                .subject(subject)
+                .message(String.valueOf(error.getMessage()))
+                .build();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure.defs.validator;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Thrown when definitions are compiled in a mode which collects all errors rather than failing on the first one, and
+ * at least one error was found.
+ */
+public final class ConjureValidationException extends RuntimeException {
+    private final List<ConjureDiagnostic> diagnostics;
+    private final int errorCount;
+
+    /** Reports the first {@code maxErrors} of the given diagnostics, which must not be empty. */
+    public ConjureValidationException(List<ConjureDiagnostic> diagnostics, int maxErrors) {
+        super(message(reported(diagnostics, maxErrors), diagnostics.size()));
+        Preconditions.checkArgument(!diagnostics.isEmpty(), "At least one diagnostic is required");
+        this.diagnostics = reported(diagnostics, maxErrors);
+        this.errorCount = diagnostics.size();
+    }
+
+    /** The reported diagnostics, in the order in which the files, types and endpoints were declared. */
+    public List<ConjureDiagnostic> diagnostics() {
+        return diagnostics;
+    }
+
+    /** The number of errors found, which may exceed the number of reported {@link #diagnostics()}. */
+    public int errorCount() {
+        return errorCount;
+    }
+
+    private static List<ConjureDiagnostic> reported(List<ConjureDiagnostic> diagnostics, int maxErrors) {
+        Preconditions.checkArgument(maxErrors >= 1, "maxErrors must be at least 1: %s", maxErrors);
+        return ImmutableList.copyOf(diagnostics.subList(0, Math.min(maxErrors, diagnostics.size())));
+    }
+
+    private static String message(List<ConjureDiagnostic> diagnostics, int errorCount) {
+        String header = errorCount == diagnostics.size()
+                ? String.format("Found %d errors in conjure definitions:", errorCount)
+                : String.format("Found %d errors in conjure definitions, showing the first %d:",
+                        errorCount, diagnostics.size());
+        return diagnostics.stream()
+                .map(ConjureDiagnostic::format)
+                .collect(Collectors.joining("\n", header + "\n", ""));
+    }
+}
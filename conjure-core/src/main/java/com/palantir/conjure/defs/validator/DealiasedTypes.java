@@ -0,0 +1,279 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure.defs.validator;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import com.palantir.conjure.either.Either;
+import com.palantir.conjure.spec.AliasDefinition;
+import com.palantir.conjure.spec.EnumDefinition;
+import com.palantir.conjure.spec.ExternalReference;
+import com.palantir.conjure.spec.ListType;
+import com.palantir.conjure.spec.MapType;
+import com.palantir.conjure.spec.ObjectDefinition;
+import com.palantir.conjure.spec.OptionalType;
+import com.palantir.conjure.spec.PrimitiveType;
+import com.palantir.conjure.spec.SetType;
+import com.palantir.conjure.spec.Type;
+import com.palantir.conjure.spec.TypeDefinition;
+import com.palantir.conjure.spec.TypeName;
+import com.palantir.conjure.spec.UnionDefinition;
+import com.palantir.conjure.visitor.DealiasingTypeVisitor;
+import com.palantir.conjure.visitor.TypeDefinitionVisitor;
+import com.palantir.conjure.visitor.TypeVisitor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dealiases types like {@link DealiasingTypeVisitor}, but resolves the references to all types of a definition up
+ * front, so that dealiasing a reference is a single lookup. Each alias chain is followed once, including through the
+ * fallbacks of external references, and its result is shared by every alias on the chain.
+ *
+ * <p>References which cannot be resolved, because they lead to a type which is not defined or not supported, are
+ * dealiased by a {@link DealiasingTypeVisitor} when they are used, which reports them as it always has. References
+ * to aliases which refer back to themselves fail with "Cannot dealias recursive alias".
+ *
+ * <p>Types declared in files which failed to convert are missing from the definition, but have been reported
+ * already; {@link #isUnconverted(Type)} tells references to them apart, so rules can skip them.
+ */
+final class DealiasedTypes {
+    private static final Type.Visitor<Type> FALLBACK = new ExternalFallbackVisitor();
+    private static final Type.Visitor<Either<TypeDefinition, Type>> NON_REFERENCE = new NonReferenceVisitor();
+    private static final TypeDefinition.Visitor<Either<TypeDefinition, Type>> NON_ALIAS = new NonAliasVisitor();
+
+    private final DealiasingTypeVisitor visitor;
+    /** The result of dealiasing a reference to each type which could be resolved. */
+    private final Map<TypeName, Either<TypeDefinition, Type>> dealiased;
+    /** Aliases which eventually refer back to themselves, and thus cannot be dealiased. */
+    private final Set<TypeName> recursive = new HashSet<>();
+    /** Types declared in files which failed to convert, and the aliases which eventually refer to them. */
+    private final Set<TypeName> unconverted = new HashSet<>();
+
+    DealiasedTypes(Map<TypeName, TypeDefinition> types) {
+        this(types, ImmutableSet.of());
+    }
+
+    DealiasedTypes(Map<TypeName, TypeDefinition> types, Set<TypeName> unconvertedTypes) {
+        this.visitor = new DealiasingTypeVisitor(types);
+        this.dealiased = new HashMap<>(types.size() * 4 / 3 + 1);
+        unconvertedTypes.stream().filter(name -> !types.containsKey(name)).forEach(unconverted::add);
+        for (TypeName name : types.keySet()) {
+            resolve(name, types);
+        }
+    }
+
+    /** Inlines outer-level aliases and references, see {@link DealiasingTypeVisitor#dealias}. */
+    Either<TypeDefinition, Type> dealias(Type type) {
+        Type target = withoutFallbacks(type);
+        if (!target.accept(TypeVisitor.IS_REFERENCE)) {
+            return visitor.dealias(target);
+        }
+        TypeName name = target.accept(TypeVisitor.REFERENCE);
+        Either<TypeDefinition, Type> result = dealiased.get(name);
+        if (result != null) {
+            return result;
+        }
+        Preconditions.checkState(!recursive.contains(name), "Cannot dealias recursive alias: %s", name);
+        return visitor.dealias(target);
+    }
+
+    /**
+     * Returns whether the type is a reference to a type declared in a file which failed to convert, directly or
+     * through aliases, and thus cannot be dealiased.
+     */
+    boolean isUnconverted(Type type) {
+        Type target = withoutFallbacks(type);
+        return target.accept(TypeVisitor.IS_REFERENCE) && unconverted.contains(target.accept(TypeVisitor.REFERENCE));
+    }
+
+    /**
+     * Follows the chain of aliases starting at {@code name} up to the first resolved name or non-alias type, and
+     * records the result for every alias on the chain. Each alias is thus followed once in total.
+     */
+    private void resolve(TypeName name, Map<TypeName, TypeDefinition> types) {
+        List<TypeName> chain = new ArrayList<>();
+        Set<TypeName> seen = new HashSet<>();
+        TypeName current = name;
+        Either<TypeDefinition, Type> result = null;
+        while (result == null) {
+            result = dealiased.get(current);
+            if (result != null) {
+                break;
+            }
+            if (recursive.contains(current) || !seen.add(current)) {
+                recursive.addAll(chain);
+                return;
+            }
+            if (unconverted.contains(current)) {
+                unconverted.addAll(chain);
+                return;
+            }
+            TypeDefinition definition = types.get(current);
+            if (definition == null) {
+                // left to dealias(), which reports it
+                return;
+            }
+            chain.add(current);
+            result = definition.accept(NON_ALIAS);
+            if (result == null) {
+                if (!definition.accept(TypeDefinitionVisitor.IS_ALIAS)) {
+                    // a definition of an unknown kind, left to dealias()
+                    return;
+                }
+                Type target = withoutFallbacks(definition.accept(TypeDefinitionVisitor.ALIAS).getAlias());
+                if (target.accept(TypeVisitor.IS_REFERENCE)) {
+                    current = target.accept(TypeVisitor.REFERENCE);
+                } else {
+                    result = target.accept(NON_REFERENCE);
+                    if (result == null) {
+                        // a type of an unknown kind, left to dealias()
+                        return;
+                    }
+                }
+            }
+        }
+        for (TypeName alias : chain) {
+            dealiased.put(alias, result);
+        }
+    }
+
+    private static Type withoutFallbacks(Type type) {
+        Type target = type;
+        for (Type fallback = target.accept(FALLBACK); fallback != null; fallback = target.accept(FALLBACK)) {
+            target = fallback;
+        }
+        return target;
+    }
+
+    /** Returns enums, objects and unions as they are, and null for aliases and unknown definitions. */
+    private static final class NonAliasVisitor implements TypeDefinition.Visitor<Either<TypeDefinition, Type>> {
+        @Override
+        public Either<TypeDefinition, Type> visitAlias(AliasDefinition _value) {
+            return null;
+        }
+
+        @Override
+        public Either<TypeDefinition, Type> visitEnum(EnumDefinition value) {
+            return Either.left(TypeDefinition.enum_(value));
+        }
+
+        @Override
+        public Either<TypeDefinition, Type> visitObject(ObjectDefinition value) {
+            return Either.left(TypeDefinition.object(value));
+        }
+
+        @Override
+        public Either<TypeDefinition, Type> visitUnion(UnionDefinition value) {
+            return Either.left(TypeDefinition.union(value));
+        }
+
+        @Override
+        public Either<TypeDefinition, Type> visitUnknown(String _unknownType) {
+            return null;
+        }
+    }
+
+    /** Returns primitives and container types as they are, and null for references and unknown types. */
+    private static final class NonReferenceVisitor implements Type.Visitor<Either<TypeDefinition, Type>> {
+        @Override
+        public Either<TypeDefinition, Type> visitPrimitive(PrimitiveType value) {
+            return Either.right(Type.primitive(value));
+        }
+
+        @Override
+        public Either<TypeDefinition, Type> visitOptional(OptionalType value) {
+            return Either.right(Type.optional(value));
+        }
+
+        @Override
+        public Either<TypeDefinition, Type> visitList(ListType value) {
+            return Either.right(Type.list(value));
+        }
+
+        @Override
+        public Either<TypeDefinition, Type> visitSet(SetType value) {
+            return Either.right(Type.set(value));
+        }
+
+        @Override
+        public Either<TypeDefinition, Type> visitMap(MapType value) {
+            return Either.right(Type.map(value));
+        }
+
+        @Override
+        public Either<TypeDefinition, Type> visitReference(TypeName _value) {
+            return null;
+        }
+
+        @Override
+        public Either<TypeDefinition, Type> visitExternal(ExternalReference _value) {
+            return null;
+        }
+
+        @Override
+        public Either<TypeDefinition, Type> visitUnknown(String _unknownType) {
+            return null;
+        }
+    }
+
+    /** Returns the fallback of external references, and null for all other types. */
+    private static final class ExternalFallbackVisitor implements Type.Visitor<Type> {
+        @Override
+        public Type visitPrimitive(PrimitiveType _value) {
+            return null;
+        }
+
+        @Override
+        public Type visitOptional(OptionalType _value) {
+            return null;
+        }
+
+        @Override
+        public Type visitList(ListType _value) {
+            return null;
+        }
+
+        @Override
+        public Type visitSet(SetType _value) {
+            return null;
+        }
+
+        @Override
+        public Type visitMap(MapType _value) {
+            return null;
+        }
+
+        @Override
+        public Type visitReference(TypeName _value) {
+            return null;
+        }
+
+        @Override
+        public Type visitExternal(ExternalReference value) {
+            return value.getFallback();
+        }
+
+        @Override
+        public Type visitUnknown(String _unknownType) {
+            return null;
+        }
+    }
+}
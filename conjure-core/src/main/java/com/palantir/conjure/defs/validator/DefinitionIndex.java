@@ -0,0 +1,71 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure.defs.validator;
+
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+import com.palantir.conjure.spec.ConjureDefinition;
+import com.palantir.conjure.spec.TypeDefinition;
+import com.palantir.conjure.spec.TypeName;
+import com.palantir.conjure.visitor.TypeDefinitionVisitor;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Lookup structures over a {@link ConjureDefinition} which are built once per validation and shared by all
+ * {@link ConjureDefinitionRule rules}.
+ */
+final class DefinitionIndex {
+    private final Map<TypeName, TypeDefinition> types;
+    private final Supplier<TypeReferenceGraph> referenceGraph;
+    private final Supplier<DealiasedTypes> dealiasedTypes;
+
+    private DefinitionIndex(
+            ConjureDefinition definition, Map<TypeName, TypeDefinition> types, Set<TypeName> unconvertedTypes) {
+        this.types = types;
+        this.dealiasedTypes = Suppliers.memoize(() -> new DealiasedTypes(types, unconvertedTypes));
+        this.referenceGraph = Suppliers.memoize(() -> TypeReferenceGraph.of(definition.getTypes()));
+    }
+
+    /**
+     * Indexes the given definition. {@code unconvertedTypes} are the types declared in files which failed to convert,
+     * and which are thus missing from the definition.
+     */
+    static DefinitionIndex of(ConjureDefinition definition, Set<TypeName> unconvertedTypes) {
+        // duplicate names are reported by UniqueNamesValidator, so tolerate them here and keep the first definition
+        Map<TypeName, TypeDefinition> types = new HashMap<>();
+        definition.getTypes().forEach(type -> types.putIfAbsent(type.accept(TypeDefinitionVisitor.TYPE_NAME), type));
+        return new DefinitionIndex(definition, ImmutableMap.copyOf(types), unconvertedTypes);
+    }
+
+    /** All types of the definition, by name. */
+    Map<TypeName, TypeDefinition> types() {
+        return types;
+    }
+
+    /** The references between the types of the definition, computed on first use. */
+    TypeReferenceGraph referenceGraph() {
+        return referenceGraph.get();
+    }
+
+    /** Resolves references against the types of the definition, with all aliases resolved on first use. */
+    DealiasedTypes dealiasedTypes() {
+        return dealiasedTypes.get();
+    }
+}
@@ -40,6 +40,7 @@ import com.palantir.conjure.visitor.ParameterTypeVisitor;
 import com.palantir.conjure.visitor.TypeDefinitionVisitor;
 import com.palantir.conjure.visitor.TypeVisitor;
 import com.palantir.logsafe.exceptions.SafeRuntimeException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -73,6 +74,23 @@ public enum EndpointDefinitionValidator implements ConjureContextualValidator<En
         }
     }
 
+    /**
+     * Validates the endpoint against all rules, like {@link #validateAll(EndpointDefinition, DealiasingTypeVisitor)},
+     * but returns a diagnostic for every violated rule rather than throwing the first error.
+     */
+    public static List<ConjureDiagnostic> collectAll(
+            EndpointDefinition definition, DealiasingTypeVisitor dealiasingVisitor) {
+        List<ConjureDiagnostic> diagnostics = new ArrayList<>();
+        for (EndpointDefinitionValidator validator : values()) {
+            try {
+                validator.validate(definition, dealiasingVisitor);
+            } catch (RuntimeException e) {
+                diagnostics.add(ConjureDiagnostic.of(validator.name(), Optional.empty(), e));
+            }
+        }
+        return diagnostics;
+    }
+
     public static final Pattern HEADER_PATTERN = Pattern.compile("^[A-Z][a-zA-Z0-9]*(-[A-Z][a-zA-Z0-9]*)*$");
 
     private final ConjureContextualValidator<EndpointDefinition> validator;
@@ -20,7 +20,10 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
 import com.palantir.conjure.spec.ServiceDefinition;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.regex.Pattern;
 
 @com.google.errorprone.annotations.Immutable
@@ -36,6 +39,22 @@ public enum ServiceDefinitionValidator implements ConjureValidator<ServiceDefini
         }
     }
 
+    /**
+     * Validates the service against all rules, like {@link #validateAll(ServiceDefinition)}, but returns a diagnostic
+     * for every violated rule rather than throwing the first error.
+     */
+    public static List<ConjureDiagnostic> collectAll(ServiceDefinition definition) {
+        List<ConjureDiagnostic> diagnostics = new ArrayList<>();
+        for (ServiceDefinitionValidator validator : values()) {
+            try {
+                validator.validate(definition);
+            } catch (RuntimeException e) {
+                diagnostics.add(ConjureDiagnostic.of(validator.name(), Optional.empty(), e));
+            }
+        }
+        return diagnostics;
+    }
+
     ServiceDefinitionValidator(ConjureValidator<ServiceDefinition> validator) {
         this.validator = validator;
     }
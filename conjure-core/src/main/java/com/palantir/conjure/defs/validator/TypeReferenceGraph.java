@@ -0,0 +1,342 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure.defs.validator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.palantir.conjure.spec.AliasDefinition;
+import com.palantir.conjure.spec.EnumDefinition;
+import com.palantir.conjure.spec.ExternalReference;
+import com.palantir.conjure.spec.FieldDefinition;
+import com.palantir.conjure.spec.ListType;
+import com.palantir.conjure.spec.MapType;
+import com.palantir.conjure.spec.ObjectDefinition;
+import com.palantir.conjure.spec.OptionalType;
+import com.palantir.conjure.spec.PrimitiveType;
+import com.palantir.conjure.spec.SetType;
+import com.palantir.conjure.spec.Type;
+import com.palantir.conjure.spec.TypeDefinition;
+import com.palantir.conjure.spec.TypeName;
+import com.palantir.conjure.spec.UnionDefinition;
+import com.palantir.conjure.visitor.TypeDefinitionVisitor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The graph of references between the types of a definition. A type references every type named anywhere in its
+ * definition, and each reference is labelled {@link Reference#REQUIRED required} or {@link Reference#OPTIONAL
+ * optional}.
+ */
+final class TypeReferenceGraph {
+    private static final Comparator<TypeName> BY_NAME =
+            Comparator.comparing(TypeName::getName).thenComparing(TypeName::getPackage);
+
+    /** How a type references another type. */
+    enum Reference {
+        /**
+         * Every value of the type must contain a value of the referenced type, i.e. it is the target of an alias or
+         * the type of an object field, and not wrapped in an optional or a collection or one of several union members.
+         */
+        REQUIRED,
+        /** Values of the type may, but need not, contain values of the referenced type. */
+        OPTIONAL
+    }
+
+    /** Nodes sorted by name, so that analyses report their findings in the same order for every input order. */
+    private final List<TypeName> types;
+    private final Map<TypeName, Map<TypeName, Reference>> references;
+
+    private TypeReferenceGraph(List<TypeName> types, Map<TypeName, Map<TypeName, Reference>> references) {
+        this.types = types;
+        this.references = references;
+    }
+
+    static TypeReferenceGraph of(Collection<TypeDefinition> definitions) {
+        Map<TypeName, Map<TypeName, Reference>> references = new TreeMap<>(BY_NAME);
+        for (TypeDefinition definition : definitions) {
+            TypeName name = definition.accept(TypeDefinitionVisitor.TYPE_NAME);
+            definition.accept(new ReferenceCollector(references.computeIfAbsent(name, key -> new LinkedHashMap<>())));
+        }
+        return new TypeReferenceGraph(ImmutableList.copyOf(references.keySet()), references);
+    }
+
+    /** All types of the definition, sorted by name. */
+    List<TypeName> types() {
+        return types;
+    }
+
+    /**
+     * Every type referenced by the definition of the given type, including types which are not defined, in the order
+     * they are first referenced. A type referenced both ways is required.
+     */
+    Map<TypeName, Reference> references(TypeName type) {
+        return Collections.unmodifiableMap(references.getOrDefault(type, Collections.emptyMap()));
+    }
+
+    /**
+     * Finds the types which require a value of themselves, and could therefore never be constructed, following only
+     * {@link Reference#REQUIRED required} references. Returns one cycle of required references per strongly connected
+     * component of such types, as the path from the component's first type by name back to itself. Runs in time
+     * linear in the size of the graph, see
+     * <a href="https://en.wikipedia.org/wiki/Tarjan%27s_strongly_connected_components_algorithm">Tarjan's
+     * algorithm</a>.
+     */
+    List<List<TypeName>> requiredCycles() {
+        Map<TypeName, Integer> ids = new HashMap<>();
+        for (int i = 0; i < types.size(); i++) {
+            ids.put(types.get(i), i);
+        }
+        int[][] edges = new int[types.size()][];
+        for (int i = 0; i < edges.length; i++) {
+            // references to types outside of the definition cannot be part of a cycle
+            edges[i] = references.get(types.get(i)).entrySet().stream()
+                    .filter(entry -> entry.getValue() == Reference.REQUIRED && ids.containsKey(entry.getKey()))
+                    .mapToInt(entry -> ids.get(entry.getKey()))
+                    .toArray();
+        }
+
+        List<List<TypeName>> cycles = new ArrayList<>();
+        for (int[] component : new Tarjan(edges).components()) {
+            if (component.length > 1 || contains(edges[component[0]], component[0])) {
+                cycles.add(shortestCycle(edges, component));
+            }
+        }
+        cycles.sort(Comparator.comparing(cycle -> cycle.get(0), BY_NAME));
+        return cycles;
+    }
+
+    /** Breadth-first search for the shortest cycle through the component's first node, staying in the component. */
+    private List<TypeName> shortestCycle(int[][] edges, int[] component) {
+        int start = Arrays.stream(component).min().getAsInt();
+        int[] parents = new int[edges.length];
+        Arrays.fill(parents, -2);
+        for (int node : component) {
+            parents[node] = -1;
+        }
+
+        int[] queue = new int[component.length];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int next : edges[node]) {
+                if (next == start) {
+                    List<TypeName> path = new ArrayList<>();
+                    for (int current = node; current != -1; current = parents[current]) {
+                        path.add(types.get(current));
+                    }
+                    path.add(types.get(start));
+                    return ImmutableList.copyOf(Lists.reverse(path));
+                } else if (parents[next] == -1) {
+                    parents[next] = node;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        throw new IllegalStateException("Strongly connected component without a cycle: " + Arrays.toString(component));
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int candidate : values) {
+            if (candidate == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Iterative version of Tarjan's algorithm, so that long chains of references cannot overflow the stack. */
+    private static final class Tarjan {
+        private final int[][] edges;
+        private final int[] index;
+        private final int[] lowLink;
+        private final int[] nextEdge;
+        private final boolean[] onStack;
+        private final int[] stack;
+        private final int[] callStack;
+        private int stackSize;
+        private int counter;
+
+        Tarjan(int[][] edges) {
+            this.edges = edges;
+            this.index = new int[edges.length];
+            this.lowLink = new int[edges.length];
+            this.nextEdge = new int[edges.length];
+            this.onStack = new boolean[edges.length];
+            this.stack = new int[edges.length];
+            this.callStack = new int[edges.length];
+            Arrays.fill(index, -1);
+        }
+
+        List<int[]> components() {
+            List<int[]> components = new ArrayList<>();
+            for (int root = 0; root < edges.length; root++) {
+                if (index[root] == -1) {
+                    visit(root, components);
+                }
+            }
+            return components;
+        }
+
+        private void visit(int root, List<int[]> components) {
+            int depth = 0;
+            callStack[depth++] = enter(root);
+            while (depth > 0) {
+                int node = callStack[depth - 1];
+                if (nextEdge[node] < edges[node].length) {
+                    int next = edges[node][nextEdge[node]++];
+                    if (index[next] == -1) {
+                        callStack[depth++] = enter(next);
+                    } else if (onStack[next]) {
+                        lowLink[node] = Math.min(lowLink[node], index[next]);
+                    }
+                    continue;
+                }
+
+                depth--;
+                if (depth > 0) {
+                    int caller = callStack[depth - 1];
+                    lowLink[caller] = Math.min(lowLink[caller], lowLink[node]);
+                }
+                if (lowLink[node] == index[node]) {
+                    int size = 0;
+                    while (stack[stackSize - 1 - size] != node) {
+                        size++;
+                    }
+                    size++;
+                    int[] component = Arrays.copyOfRange(stack, stackSize - size, stackSize);
+                    stackSize -= size;
+                    for (int member : component) {
+                        onStack[member] = false;
+                    }
+                    components.add(component);
+                }
+            }
+        }
+
+        private int enter(int node) {
+            index[node] = counter;
+            lowLink[node] = counter;
+            counter++;
+            stack[stackSize++] = node;
+            onStack[node] = true;
+            return node;
+        }
+    }
+
+    private static final class ReferenceCollector implements TypeDefinition.Visitor<Void> {
+        private final Map<TypeName, Reference> references;
+
+        ReferenceCollector(Map<TypeName, Reference> references) {
+            this.references = references;
+        }
+
+        @Override
+        public Void visitAlias(AliasDefinition value) {
+            return value.getAlias().accept(new TypeCollector(Reference.REQUIRED));
+        }
+
+        @Override
+        public Void visitEnum(EnumDefinition _value) {
+            return null;
+        }
+
+        @Override
+        public Void visitObject(ObjectDefinition value) {
+            for (FieldDefinition field : value.getFields()) {
+                field.getType().accept(new TypeCollector(Reference.REQUIRED));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitUnion(UnionDefinition value) {
+            // a union value contains only one of its members
+            for (FieldDefinition member : value.getUnion()) {
+                member.getType().accept(new TypeCollector(Reference.OPTIONAL));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitUnknown(String _unknownType) {
+            return null;
+        }
+
+        /** Collects referenced types, which are optional once wrapped in a type which may hold no value of them. */
+        private final class TypeCollector implements Type.Visitor<Void> {
+            private final Reference reference;
+
+            TypeCollector(Reference reference) {
+                this.reference = reference;
+            }
+
+            @Override
+            public Void visitReference(TypeName value) {
+                references.merge(value, reference, (left, right) -> left == Reference.REQUIRED ? left : right);
+                return null;
+            }
+
+            @Override
+            public Void visitOptional(OptionalType value) {
+                return value.getItemType().accept(new TypeCollector(Reference.OPTIONAL));
+            }
+
+            @Override
+            public Void visitList(ListType value) {
+                return value.getItemType().accept(new TypeCollector(Reference.OPTIONAL));
+            }
+
+            @Override
+            public Void visitSet(SetType value) {
+                return value.getItemType().accept(new TypeCollector(Reference.OPTIONAL));
+            }
+
+            @Override
+            public Void visitMap(MapType value) {
+                TypeCollector contained = new TypeCollector(Reference.OPTIONAL);
+                value.getKeyType().accept(contained);
+                return value.getValueType().accept(contained);
+            }
+
+            @Override
+            public Void visitPrimitive(PrimitiveType _value) {
+                return null;
+            }
+
+            @Override
+            public Void visitExternal(ExternalReference _value) {
+                // external types are defined outside of Conjure and cannot refer back to the definition
+                return null;
+            }
+
+            @Override
+            public Void visitUnknown(String _unknownType) {
+                return null;
+            }
+        }
+    }
+}
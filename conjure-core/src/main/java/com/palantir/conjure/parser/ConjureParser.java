@@ -20,9 +20,19 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.AnnotationIntrospector;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Suppliers;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.palantir.conjure.parser.types.ConjureType;
+import com.palantir.conjure.parser.types.ConjureTypeCache;
 import com.palantir.conjure.parser.types.TypesDefinition;
 import com.palantir.conjure.parser.types.names.Namespace;
 import com.palantir.conjure.parser.types.reference.ConjureImports;
@@ -30,10 +40,25 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public final class ConjureParser {
@@ -57,7 +82,7 @@ public final class ConjureParser {
     /** Deserializes a {@link ConjureSourceFile} from its YAML representation in the given file. */
     public static ConjureSourceFile parse(File file) {
         RecursiveParser parser = new RecursiveParser();
-        return parser.parse(file);
+        return parser.parse(file, new LinkedHashSet<>());
     }
 
     public static AnnotatedConjureSourceFile parseAnnotated(File file) {
@@ -67,56 +92,190 @@ public final class ConjureParser {
                 .build();
     }
 
+    /**
+     * Creates a {@link Session} whose import cache is shared by every file it parses, so that a file imported from
+     * many places is read and deserialized at most once.
+     */
+    public static Session newSession() {
+        return new Session();
+    }
+
+    /**
+     * Parser context for a single compilation, sharing parsed imports between all of its input files. Sessions are
+     * thread-safe: concurrent calls deduplicate shared imports and each track their own import path for cycle
+     * detection. A session may also be kept across compilations, provided that files which changed in between are
+     * evicted, e.g. with {@link #invalidateModified()}.
+     */
+    public static final class Session {
+        private final RecursiveParser parser = new RecursiveParser();
+
+        private Session() {}
+
+        public ConjureSourceFile parse(File file) {
+            return parser.parse(file, new LinkedHashSet<>());
+        }
+
+        public AnnotatedConjureSourceFile parseAnnotated(File file) {
+            return AnnotatedConjureSourceFile.builder()
+                    .conjureSourceFile(parse(file))
+                    .sourceFile(file)
+                    .build();
+        }
+
+        /**
+         * Parses all of the given files using up to {@code threads} worker threads. Results are returned in the
+         * iteration order of {@code files}; if several files fail to parse, the error of the first of them in that
+         * order is thrown, so the outcome is the same as parsing the files sequentially.
+         */
+        public List<AnnotatedConjureSourceFile> parseAnnotated(Collection<File> files, int threads) {
+            Preconditions.checkArgument(threads >= 1, "threads must be at least 1: %s", threads);
+            if (threads == 1 || files.size() <= 1) {
+                return files.stream().map(this::parseAnnotated).collect(Collectors.toList());
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(
+                    Math.min(threads, files.size()),
+                    new ThreadFactoryBuilder().setNameFormat("conjure-parser-%d").setDaemon(true).build());
+            try {
+                List<Future<AnnotatedConjureSourceFile>> futures = files.stream()
+                        .map(file -> executor.submit(() -> parseAnnotated(file)))
+                        .collect(Collectors.toList());
+                List<AnnotatedConjureSourceFile> results = new ArrayList<>(futures.size());
+                for (Future<AnnotatedConjureSourceFile> future : futures) {
+                    results.add(Futures.getUnchecked(future));
+                }
+                return results;
+            } catch (UncheckedExecutionException e) {
+                // rethrow the parser's own exception, e.g. CyclicImportException, as the sequential path would
+                Throwables.throwIfUnchecked(e.getCause());
+                throw e;
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        /**
+         * Evicts the given files from this session, together with every file that transitively imports any of them,
+         * so that they are read again the next time they are parsed. Returns the normalized absolute paths of all
+         * evicted files.
+         */
+        public Set<String> invalidate(Collection<File> files) {
+            return parser.invalidate(files.stream().map(RecursiveParser::normalizedPath).collect(Collectors.toSet()));
+        }
+
+        /**
+         * Evicts every file whose size or modification time changed since this session read it, as
+         * {@link #invalidate(Collection)} does, so that a session which is kept across compilations picks up the
+         * changes made in between. Returns the normalized absolute paths of all evicted files.
+         */
+        public Set<String> invalidateModified() {
+            return parser.invalidate(parser.modifiedFiles());
+        }
+
+        /** Number of parse requests, including those for imports, that did not need to read a file from disk. */
+        public int cacheHits() {
+            return parser.requests.get() - parser.reads.get();
+        }
+
+        /** Number of files that were read from disk, i.e. the number of distinct files parsed. */
+        public int cacheMisses() {
+            return parser.reads.get();
+        }
+
+        /** Hit and miss counts of the type expressions parsed by this session, see {@link ConjureTypeCache}. */
+        public CacheStats typeCacheStats() {
+            return parser.typeCache.stats();
+        }
+    }
+
     private static final class RecursiveParser {
-        private final Map<String, ConjureSourceFile> cache;
-        private final Set<String> currentDepthFirstPath;
+        /** Fully resolved files, including their transitive imports. */
+        private final ConcurrentMap<String, ConjureSourceFile> cache = new ConcurrentHashMap<>();
+        /**
+         * Files as read from disk, before their imports are resolved. Reading a file never recurses, so unlike
+         * {@link #cache} this can be populated with computeIfAbsent; the memoizing supplier moves the actual IO out
+         * of the map's lock while still guaranteeing each file is read at most once.
+         */
+        private final ConcurrentMap<String, Supplier<ConjureSourceFile>> readFiles = new ConcurrentHashMap<>();
+        /** Reverse import graph: for each file, the files which directly import it. */
+        private final ConcurrentMap<String, Set<String>> dependents = new ConcurrentHashMap<>();
+        /** Size and modification time of each file in {@link #readFiles}, as of just before it was read. */
+        private final ConcurrentMap<String, String> stamps = new ConcurrentHashMap<>();
+        /** Type expressions of every file read by this parser. */
+        private final ConjureTypeCache typeCache = new ConjureTypeCache();
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicInteger reads = new AtomicInteger();
 
-        private RecursiveParser() {
-            this.cache = new HashMap<>();
-            this.currentDepthFirstPath = new LinkedHashSet<>(); // maintain order so we can print the cycle
+        private static String normalizedPath(File file) {
+            return file.toPath().toAbsolutePath().normalize().toString();
         }
 
-        ConjureSourceFile parse(File file) {
+        /**
+         * Parses the given file, resolving its imports. {@code currentDepthFirstPath} holds the import chain of the
+         * calling thread, in order, so that we can detect and print cycles.
+         */
+        ConjureSourceFile parse(File file, Set<String> currentDepthFirstPath) {
+            requests.incrementAndGet();
+            // Normalize so that the same file imported via different relative paths (e.g. 'a/../common.yml' and
+            // 'common.yml') shares one cache entry.
+            String path = normalizedPath(file);
+
             // HashMap.computeIfAbsent does not work with recursion; the size of the map gets corrupted,
             // and if the map gets resized during the recursion, some of the new nodes can be put in wrong
-            // buckets. Therefore don't use computeIfAbsent in parse/parseInternal
-            // See https://bugs.java.com/view_bug.do?bug_id=JDK-8071667
-            ConjureSourceFile result = cache.get(file.getAbsolutePath());
+            // buckets. ConcurrentHashMap.computeIfAbsent deadlocks instead. Therefore don't use computeIfAbsent
+            // in parse/parseInternal. See https://bugs.java.com/view_bug.do?bug_id=JDK-8071667
+            ConjureSourceFile result = cache.get(path);
             if (result != null) {
                 return result;
             }
 
-            if (!currentDepthFirstPath.add(file.getAbsolutePath())) {
+            if (!currentDepthFirstPath.add(path)) {
                 String cycle = currentDepthFirstPath.stream().reduce("", (left, right) -> left + " -> " + right)
-                        + " -> " + file.getAbsolutePath();
+                        + " -> " + path;
                 throw new CyclicImportException(cycle);
             }
 
-            result = parseInternal(file);
-            cache.put(file.getAbsolutePath(), result);
-            return result;
+            try {
+                result = parseInternal(file, path, currentDepthFirstPath);
+            } finally {
+                currentDepthFirstPath.remove(path);
+            }
+            // Two threads may race to resolve the same file; both results are equal, keep the first.
+            ConjureSourceFile existing = cache.putIfAbsent(path, result);
+            return existing != null ? existing : result;
         }
 
-        private ConjureSourceFile parseInternal(File file) {
+        private ConjureSourceFile parseInternal(File file, String path, Set<String> currentDepthFirstPath) {
             // Note(rfink): The mechanism of parsing the ConjureSourceFile and the imports separately isn't pretty,
             // but it's better than the previous implementation where ConjureImports types were passed around all
             // over the place. Main obstacle to simpler parsing is that Jackson parsers don't have context, i.e., it's
             // impossible to know the base-path w.r.t. which the imported file is declared.
+            ConjureSourceFile definition =
+                    readFiles.computeIfAbsent(path, key -> Suppliers.memoize(() -> read(file, path))).get();
+            Map<Namespace, ConjureImports> imports = parseImports(
+                    definition.types().conjureImports(), path, file.toPath().getParent(), currentDepthFirstPath);
+            return ConjureSourceFile.builder()
+                    .from(definition)
+                    .types(TypesDefinition.builder()
+                            .from(definition.types())
+                            .conjureImports(imports)
+                            .build())
+                    .build();
+        }
+
+        private ConjureSourceFile read(File file, String path) {
             if (!Files.exists(file.toPath())) {
                 throw new ImportNotFoundException(file);
             }
 
             try {
-                ConjureSourceFile definition = MAPPER.readValue(file, ConjureSourceFile.class);
-                Map<Namespace, ConjureImports> imports =
-                        parseImports(definition.types().conjureImports(), file.toPath().getParent());
-                return ConjureSourceFile.builder()
-                        .from(definition)
-                        .types(TypesDefinition.builder()
-                                .from(definition.types())
-                                .conjureImports(imports)
-                                .build())
-                        .build();
+                // stamp before reading, so that a change made while reading is detected by the next compilation
+                stamps.put(path, stamp(file.toPath()));
+                ConjureSourceFile definition = MAPPER.readerFor(ConjureSourceFile.class)
+                        .withAttribute(ConjureTypeCache.class, typeCache)
+                        .readValue(file);
+                reads.incrementAndGet();
+                return definition;
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
@@ -127,20 +286,62 @@ public final class ConjureParser {
          * {@link ConjureImports#conjure()} imported definitions}.
          */
         private Map<Namespace, ConjureImports> parseImports(
-                Map<Namespace, ConjureImports> declaredImports, Path baseDir) {
+                Map<Namespace, ConjureImports> declaredImports,
+                String path,
+                Path baseDir,
+                Set<String> currentDepthFirstPath) {
             return declaredImports.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, entry -> {
                 String importedFile = entry.getValue().file();
-                ConjureSourceFile importedConjure = parse(baseDir.resolve(importedFile).toFile());
+                File resolvedFile = baseDir.resolve(importedFile).toFile();
+                dependents.computeIfAbsent(normalizedPath(resolvedFile), key -> ConcurrentHashMap.newKeySet())
+                        .add(path);
+                ConjureSourceFile importedConjure = parse(resolvedFile, currentDepthFirstPath);
                 return ConjureImports.withResolvedImports(importedFile, importedConjure);
             }));
         }
 
+        Set<String> modifiedFiles() {
+            Set<String> modified = new HashSet<>();
+            stamps.forEach((path, stamp) -> {
+                try {
+                    if (!stamp(Paths.get(path)).equals(stamp)) {
+                        modified.add(path);
+                    }
+                } catch (IOException e) {
+                    // e.g. the file was deleted
+                    modified.add(path);
+                }
+            });
+            return modified;
+        }
+
+        private static String stamp(Path file) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return attributes.size() + "@" + attributes.lastModifiedTime();
+        }
+
+        Set<String> invalidate(Set<String> paths) {
+            Set<String> evicted = new HashSet<>();
+            Deque<String> pending = new ArrayDeque<>(paths);
+            while (!pending.isEmpty()) {
+                String path = pending.pop();
+                if (evicted.add(path)) {
+                    cache.remove(path);
+                    readFiles.remove(path);
+                    stamps.remove(path);
+                    pending.addAll(dependents.getOrDefault(path, Collections.emptySet()));
+                }
+            }
+            return evicted;
+        }
     }
 
     @VisibleForTesting
     static ObjectMapper createConjureParserObjectMapper() {
         ObjectMapper mapper = new ObjectMapper(new YAMLFactory())
                 .registerModule(new Jdk8Module())
+                .registerModule(
+                        new SimpleModule().addDeserializer(ConjureType.class, new ConjureTypeCache.Deserializer()))
                 .setAnnotationIntrospector(
                         AnnotationIntrospector.pair(
                                 new KebabCaseEnforcingAnnotationInspector(), // needs to come first.
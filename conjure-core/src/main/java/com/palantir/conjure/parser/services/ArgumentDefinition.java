@@ -26,6 +26,7 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.palantir.conjure.defs.ConjureImmutablesStyle;
 import com.palantir.conjure.parser.services.ArgumentDefinition.ArgumentDefinitionDeserializer;
 import com.palantir.conjure.parser.types.ConjureType;
+import com.palantir.conjure.parser.types.ConjureTypeCache;
 import com.palantir.parsec.ParseException;
 import java.io.IOException;
 import java.util.Locale;
@@ -99,20 +100,20 @@ public interface ArgumentDefinition {
     class ArgumentDefinitionDeserializer extends JsonDeserializer<ArgumentDefinition> {
         @SuppressWarnings("deprecation")
         @Override
-        public ArgumentDefinition deserialize(JsonParser parser, DeserializationContext _context)
+        public ArgumentDefinition deserialize(JsonParser parser, DeserializationContext context)
                 throws IOException, JsonProcessingException {
 
             String candidate = parser.getValueAsString();
             if (candidate != null) {
                 try {
-                    return of(ConjureType.fromString(candidate));
+                    return of(ConjureTypeCache.parse(context, candidate));
                 } catch (ParseException e) {
                     throw new RuntimeException(e);
                 }
             }
 
             return ImmutableArgumentDefinition.fromJson(
-                    parser.readValueAs(ImmutableArgumentDefinition.Json.class));
+                    context.readValue(parser, ImmutableArgumentDefinition.Json.class));
         }
     }
 
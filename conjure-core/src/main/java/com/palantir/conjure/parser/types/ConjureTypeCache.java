@@ -0,0 +1,91 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure.parser.types;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.palantir.parsec.ParseException;
+import java.io.IOException;
+
+/**
+ * A bounded, thread-safe cache of parsed {@link ConjureType type expressions}, scoped to the files read by one
+ * {@link com.palantir.conjure.parser.ConjureParser.Session}.
+ *
+ * <p>Real definitions repeat a small number of type expressions, such as {@code optional<string>}, many times over,
+ * so most lookups hit. Entries are keyed by the type expression exactly as written: whitespace is significant to
+ * {@link TypeParser}, so stripping it could turn an invalid expression into a valid one. Parsed types are immutable
+ * and can therefore be shared; expressions which fail to parse are not cached.
+ *
+ * <p>Deserializers find the cache of the current read in the {@link DeserializationContext#getAttribute attribute}
+ * keyed by this class, see {@link #parse(DeserializationContext, String)}.
+ */
+public final class ConjureTypeCache {
+    private static final int MAXIMUM_SIZE = 10_000;
+
+    private final Cache<String, ConjureType> cache = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .recordStats()
+            .build();
+
+    public ConjureType parse(String value) throws ParseException {
+        ConjureType cached = cache.getIfPresent(value);
+        if (cached != null) {
+            return cached;
+        }
+        // Racing threads may both parse the same expression; their results are equal, so either may win.
+        ConjureType parsed = ConjureType.fromString(value);
+        cache.put(value, parsed);
+        return parsed;
+    }
+
+    /** Hit and miss counts of all lookups in this cache. */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Parses the given type expression with the cache of the current read, or without a cache if the reader was not
+     * given one.
+     */
+    public static ConjureType parse(DeserializationContext context, String value) throws ParseException {
+        Object cache = context.getAttribute(ConjureTypeCache.class);
+        return cache instanceof ConjureTypeCache
+                ? ((ConjureTypeCache) cache).parse(value)
+                : ConjureType.fromString(value);
+    }
+
+    /** Deserializes type expressions through {@link #parse(DeserializationContext, String)}. */
+    public static final class Deserializer extends JsonDeserializer<ConjureType> {
+        @Override
+        public ConjureType deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            String value = parser.getValueAsString();
+            if (value == null) {
+                return (ConjureType) context.handleUnexpectedToken(ConjureType.class, parser);
+            }
+            try {
+                return parse(context, value);
+            } catch (ParseException e) {
+                // same message as when Jackson calls ConjureType.fromString itself
+                return (ConjureType) context.handleInstantiationProblem(ConjureType.class, value, e);
+            }
+        }
+    }
+}
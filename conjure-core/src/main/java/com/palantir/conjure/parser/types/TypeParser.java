@@ -27,11 +27,15 @@ import com.palantir.conjure.parser.types.names.Namespace;
 import com.palantir.conjure.parser.types.names.TypeName;
 import com.palantir.conjure.parser.types.reference.ForeignReferenceType;
 import com.palantir.conjure.parser.types.reference.LocalReferenceType;
+import com.palantir.parsec.CharacterClass;
 import com.palantir.parsec.ParseException;
 import com.palantir.parsec.Parser;
+import com.palantir.parsec.ParserProfiler;
 import com.palantir.parsec.ParserState;
 import com.palantir.parsec.Parsers;
+import com.palantir.parsec.PredictiveParser;
 import com.palantir.parsec.StringParserState;
+import com.palantir.parsec.parsers.ExpectantParser;
 import com.palantir.parsec.parsers.ExpectationResult;
 import com.palantir.parsec.parsers.KeyValueParser;
 import com.palantir.parsec.parsers.KeyValueParser.KeyValue;
@@ -40,48 +44,70 @@ import com.palantir.parsec.parsers.RawStringParser;
 public enum TypeParser implements Parser<ConjureType> {
     INSTANCE;
 
+    /**
+     * The grammar of type expressions. It holds no state, so a single instance is shared by all parses, including
+     * the nested ones of container types. Its alternatives are profiled by {@link ParserProfiler}, if enabled.
+     */
+    private static final Parser<ConjureType> TYPE_PARSER = ParserProfiler.profile("type", Parsers.or(
+            ParserProfiler.profile("type.map", MapTypeParser.INSTANCE),
+            ParserProfiler.profile("type.list", ListTypeParser.INSTANCE),
+            ParserProfiler.profile("type.set", SetTypeParser.INSTANCE),
+            ParserProfiler.profile("type.optional", OptionalTypeParser.INSTANCE),
+            ParserProfiler.profile("type.any", TypeFromString.of("any", AnyType.of(), AnyType.class)),
+            ParserProfiler.profile("type.binary", TypeFromString.of("binary", BinaryType.of(), BinaryType.class)),
+            ParserProfiler.profile(
+                    "type.datetime", TypeFromString.of("datetime", DateTimeType.of(), DateTimeType.class)),
+            ParserProfiler.profile("type.foreignReference", ForeignReferenceTypeParser.INSTANCE),
+            ParserProfiler.profile("type.reference", TypeReferenceParser.INSTANCE)));
+
+    /** Parses the {@code <T>} of a container type. */
+    private static final Parser<ConjureType> ITEM_TYPE_PARSER = Parsers.liberalBetween("<", INSTANCE, ">");
+
+    /** Parses the {@code <K, V>} of a map type. */
+    private static final Parser<KeyValue<ConjureType, ConjureType>> KEY_VALUE_TYPES_PARSER = Parsers.liberalBetween(
+            "<",
+            new KeyValueParser<>(
+                    Parsers.whitespace(INSTANCE),
+                    Parsers.whitespace(Parsers.expect(",")),
+                    Parsers.whitespace(INSTANCE)),
+            ">");
+
+    private static final ExpectantParser NAMESPACE_SEPARATOR = Parsers.expect(".");
+
+    /**
+     * Parses the given type expression in a single pass. Any amount of trailing whitespace is permitted, but no other
+     * trailing characters; before, exactly one trailing character of any kind was ignored. On failure, the state of
+     * the thrown exception points at the first character which could not be parsed, and its message starts with
+     * {@code "Invalid type: <input>"} or {@code "Unexpected trailing characters in type: <input>"} rather than with
+     * the input alone.
+     */
     public ConjureType parse(String input) throws ParseException {
         ParserState inputParserState = new StringParserState(input);
-        ConjureType resultType = Parsers.eof(typeParser()).parse(inputParserState);
+        ConjureType resultType = TYPE_PARSER.parse(inputParserState);
         if (resultType == null) {
-            throw new ParseException(input, inputParserState);
+            throw new ParseException("Invalid type: " + input, inputParserState);
         }
-        return parse(new StringParserState(input));
+        Parsers.whitespace().parse(inputParserState);
+        if (inputParserState.curr() != -1) {
+            throw new ParseException("Unexpected trailing characters in type: " + input, inputParserState);
+        }
+        return resultType;
     }
 
     @Override
     public ConjureType parse(ParserState input) throws ParseException {
-        return typeParser().parse(input);
-    }
-
-    private Parser<ConjureType> typeParser() {
-        return Parsers.or(
-                MapTypeParser.INSTANCE,
-                ListTypeParser.INSTANCE,
-                SetTypeParser.INSTANCE,
-                OptionalTypeParser.INSTANCE,
-                TypeFromString.of("any", AnyType.of(), AnyType.class),
-                TypeFromString.of("binary", BinaryType.of(), BinaryType.class),
-                TypeFromString.of("datetime", DateTimeType.of(), DateTimeType.class),
-                ForeignReferenceTypeParser.INSTANCE,
-                TypeReferenceParser.INSTANCE);
+        return TYPE_PARSER.parse(input);
     }
 
-    private enum TypeReferenceParser implements Parser<LocalReferenceType> {
+    private enum TypeReferenceParser implements PredictiveParser<LocalReferenceType> {
         INSTANCE;
 
-        public static final Parser<String> REF_PARSER = new RawStringParser(
-                new RawStringParser.AllowableCharacters() {
-                    @Override
-                    public boolean isAllowed(char character) {
-                        return Character.isJavaIdentifierPart(character);
-                    }
+        public static final Parser<String> REF_PARSER = new RawStringParser(CharacterClass.JAVA_IDENTIFIER_PART);
 
-                    @Override
-                    public String getDescription() {
-                        return "Character is an allowable Java identifier character";
-                    }
-                });
+        @Override
+        public boolean canStartWith(int character) {
+            return character != -1 && CharacterClass.JAVA_IDENTIFIER_PART.isAllowed((char) character);
+        }
 
         @Override
         public LocalReferenceType parse(ParserState input) throws ParseException {
@@ -97,27 +123,20 @@ public enum TypeParser implements Parser<ConjureType> {
     }
 
     // TODO(qchen): Change to ExternalType?
-    private enum ForeignReferenceTypeParser implements Parser<ForeignReferenceType> {
+    private enum ForeignReferenceTypeParser implements PredictiveParser<ForeignReferenceType> {
         INSTANCE;
 
-        public static final Parser<String> NAMESPACE_PARSER = new RawStringParser(
-                new RawStringParser.AllowableCharacters() {
-                    @Override
-                    public boolean isAllowed(char character) {
-                        return ('a' <= character && character <= 'z')
-                                || ('A' <= character && character <= 'Z');
-                    }
+        public static final Parser<String> NAMESPACE_PARSER = new RawStringParser(CharacterClass.ASCII_LETTERS);
 
-                    @Override
-                    public String getDescription() {
-                        return "Character is one of [a-zA-Z]";
-                    }
-                });
+        @Override
+        public boolean canStartWith(int character) {
+            return character != -1 && CharacterClass.ASCII_LETTERS.isAllowed((char) character);
+        }
 
         @Override
         public ForeignReferenceType parse(ParserState input) throws ParseException {
             String namespace = NAMESPACE_PARSER.parse(input);
-            if (Parsers.nullOrUnexpected(Parsers.expect(".").parse(input))) {
+            if (Parsers.nullOrUnexpected(NAMESPACE_SEPARATOR.parse(input))) {
                 return null;
             }
             String ref = TypeReferenceParser.REF_PARSER.parse(input);
@@ -125,86 +144,111 @@ public enum TypeParser implements Parser<ConjureType> {
         }
     }
 
-    private enum ListTypeParser implements Parser<ListType> {
+    private enum ListTypeParser implements PredictiveParser<ListType> {
         INSTANCE;
 
+        private static final ExpectantParser KEYWORD = Parsers.expect("list");
+
+        @Override
+        public boolean canStartWith(int character) {
+            return KEYWORD.canStartWith(character);
+        }
+
         @Override
         public ListType parse(ParserState input) throws ParseException {
-            ExpectationResult result = Parsers.expect("list").parse(input);
+            ExpectationResult result = KEYWORD.parse(input);
             if (Parsers.nullOrUnexpected(result)) {
                 return null;
             }
 
-            ConjureType itemType = Parsers.liberalBetween("<", TypeParser.INSTANCE, ">").parse(input);
+            ConjureType itemType = ITEM_TYPE_PARSER.parse(input);
             return ListType.of(itemType);
         }
     }
 
-    private enum SetTypeParser implements Parser<SetType> {
+    private enum SetTypeParser implements PredictiveParser<SetType> {
         INSTANCE;
 
+        private static final ExpectantParser KEYWORD = Parsers.expect("set");
+
+        @Override
+        public boolean canStartWith(int character) {
+            return KEYWORD.canStartWith(character);
+        }
+
         @Override
         public SetType parse(ParserState input) throws ParseException {
-            ExpectationResult result = Parsers.expect("set").parse(input);
+            ExpectationResult result = KEYWORD.parse(input);
             if (Parsers.nullOrUnexpected(result)) {
                 return null;
             }
 
-            ConjureType itemType = Parsers.liberalBetween("<", TypeParser.INSTANCE, ">").parse(input);
+            ConjureType itemType = ITEM_TYPE_PARSER.parse(input);
             return SetType.of(itemType);
         }
     }
 
-    private enum OptionalTypeParser implements Parser<OptionalType> {
+    private enum OptionalTypeParser implements PredictiveParser<OptionalType> {
         INSTANCE;
 
+        private static final ExpectantParser KEYWORD = Parsers.expect("optional");
+
+        @Override
+        public boolean canStartWith(int character) {
+            return KEYWORD.canStartWith(character);
+        }
+
         @Override
         public OptionalType parse(ParserState input) throws ParseException {
-            ExpectationResult result = Parsers.expect("optional").parse(input);
+            ExpectationResult result = KEYWORD.parse(input);
             if (Parsers.nullOrUnexpected(result)) {
                 return null;
             }
 
-            ConjureType itemType = Parsers.liberalBetween("<", TypeParser.INSTANCE, ">").parse(input);
+            ConjureType itemType = ITEM_TYPE_PARSER.parse(input);
             return OptionalType.of(itemType);
         }
     }
 
-    private enum MapTypeParser implements Parser<MapType> {
+    private enum MapTypeParser implements PredictiveParser<MapType> {
         INSTANCE;
 
+        private static final ExpectantParser KEYWORD = Parsers.expect("map");
+
+        @Override
+        public boolean canStartWith(int character) {
+            return KEYWORD.canStartWith(character);
+        }
+
         @Override
         public MapType parse(ParserState input) throws ParseException {
-            ExpectationResult result = Parsers.expect("map").parse(input);
+            ExpectationResult result = KEYWORD.parse(input);
             if (Parsers.nullOrUnexpected(result)) {
                 return null;
             }
 
-            Parser<KeyValue<ConjureType, ConjureType>> kv = Parsers.liberalBetween(
-                    "<",
-                    new KeyValueParser<>(
-                            Parsers.whitespace(TypeParser.INSTANCE),
-                            Parsers.whitespace(Parsers.expect(",")),
-                            Parsers.whitespace(TypeParser.INSTANCE)),
-                    ">");
-
-            KeyValue<ConjureType, ConjureType> types = kv.parse(input);
+            KeyValue<ConjureType, ConjureType> types = KEY_VALUE_TYPES_PARSER.parse(input);
             return MapType.of(types.getKey(), types.getValue());
         }
     }
 
-    private static final class TypeFromString<T> implements Parser<T> {
-        private final String type;
+    private static final class TypeFromString<T> implements PredictiveParser<T> {
+        private final ExpectantParser type;
         private final T instance;
 
         TypeFromString(String type, T instance) {
-            this.type = type;
+            this.type = Parsers.expect(type);
             this.instance = instance;
         }
 
+        @Override
+        public boolean canStartWith(int character) {
+            return type.canStartWith(character);
+        }
+
         @Override
         public T parse(ParserState input) throws ParseException {
-            ExpectationResult result = Parsers.expect(type).parse(input);
+            ExpectationResult result = type.parse(input);
             if (Parsers.nullOrUnexpected(result)) {
                 return null;
             }
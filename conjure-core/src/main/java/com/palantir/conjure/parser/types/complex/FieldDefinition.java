@@ -22,6 +22,7 @@ import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.palantir.conjure.defs.ConjureImmutablesStyle;
 import com.palantir.conjure.parser.types.ConjureType;
+import com.palantir.conjure.parser.types.ConjureTypeCache;
 import com.palantir.conjure.parser.types.complex.FieldDefinition.FieldDefinitionDeserializer;
 import com.palantir.parsec.ParseException;
 import java.io.IOException;
@@ -47,19 +48,19 @@ public interface FieldDefinition {
     class FieldDefinitionDeserializer extends JsonDeserializer<FieldDefinition> {
         @SuppressWarnings("deprecation")
         @Override
-        public FieldDefinition deserialize(JsonParser parser, DeserializationContext _context) throws IOException {
+        public FieldDefinition deserialize(JsonParser parser, DeserializationContext context) throws IOException {
 
             String candidate = parser.getValueAsString();
             if (candidate != null) {
                 try {
-                    return of(ConjureType.fromString(candidate));
+                    return of(ConjureTypeCache.parse(context, candidate));
                 } catch (ParseException e) {
                     throw new RuntimeException(e);
                 }
             }
 
             return ImmutableFieldDefinition.fromJson(
-                    parser.readValueAs(ImmutableFieldDefinition.Json.class));
+                    context.readValue(parser, ImmutableFieldDefinition.Json.class));
         }
     }
 
@@ -0,0 +1,85 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.parsec;
+
+import com.palantir.parsec.parsers.RawStringParser;
+import java.util.function.IntPredicate;
+
+/**
+ * A set of characters whose ASCII members are precomputed into a 128-bit table, so that testing the characters which
+ * make up nearly all input is a shift and a mask. Other characters fall back to the predicate the class was built
+ * from, which must therefore not change its answer for a given character.
+ */
+public final class CharacterClass implements RawStringParser.AllowableCharacters {
+
+    public static final CharacterClass WHITESPACE = of("Character.isWhitespace", Character::isWhitespace);
+    public static final CharacterClass NO_WHITESPACE = of("NO_WHITESPACE", c -> !Character.isWhitespace(c));
+    public static final CharacterClass JAVA_IDENTIFIER_PART =
+            of("Character is an allowable Java identifier character", Character::isJavaIdentifierPart);
+    public static final CharacterClass ASCII_LETTERS =
+            of("Character is one of [a-zA-Z]", c -> ('a' <= c && c <= 'z') || ('A' <= c && c <= 'Z'));
+
+    private final String description;
+    private final IntPredicate fallback;
+    private final long low;
+    private final long high;
+
+    private CharacterClass(String description, IntPredicate predicate) {
+        this.description = description;
+        this.fallback = predicate;
+        long lowBits = 0;
+        long highBits = 0;
+        for (int c = 0; c < 64; c++) {
+            lowBits |= predicate.test(c) ? 1L << c : 0;
+            highBits |= predicate.test(c + 64) ? 1L << c : 0;
+        }
+        this.low = lowBits;
+        this.high = highBits;
+    }
+
+    public static CharacterClass of(String description, IntPredicate predicate) {
+        return new CharacterClass(description, predicate);
+    }
+
+    /** Precomputes the given characters, unless they already are a {@link CharacterClass}. */
+    public static CharacterClass of(RawStringParser.AllowableCharacters characters) {
+        if (characters instanceof CharacterClass) {
+            return (CharacterClass) characters;
+        }
+        return new CharacterClass(characters.getDescription(), c -> characters.isAllowed((char) c));
+    }
+
+    @Override
+    public boolean isAllowed(char character) {
+        if (character < 64) {
+            return (low & (1L << character)) != 0;
+        } else if (character < 128) {
+            return (high & (1L << (character - 64))) != 0;
+        }
+        return fallback.test(character);
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
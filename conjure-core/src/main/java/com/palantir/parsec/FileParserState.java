@@ -17,21 +17,22 @@
 package com.palantir.parsec;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 
+/**
+ * A {@link ParserState} over the contents of a file, which is read into a string up front and parsed in place.
+ */
 public final class FileParserState implements ParserState {
 
     private final StringParserState delegate;
 
     public FileParserState(File in) {
         try {
-            StringBuilder sb = new StringBuilder(new String(Files.readAllBytes(in.toPath()), StandardCharsets.UTF_8));
-
-            delegate = new StringParserState(sb);
-        } catch (FileNotFoundException e) {
+            delegate = new StringParserState(new String(Files.readAllBytes(in.toPath()), StandardCharsets.UTF_8));
+        } catch (NoSuchFileException e) {
             throw new IllegalArgumentException("Cannot find file '" + in.getAbsolutePath() + "'", e);
         } catch (IOException e) {
             throw new IllegalArgumentException("Error reading file '" + in.getAbsolutePath() + "'", e);
@@ -48,6 +49,11 @@ public final class FileParserState implements ParserState {
         return delegate.next();
     }
 
+    @Override
+    public CharSequence consume(CharacterClass characters) {
+        return delegate.consume(characters);
+    }
+
     @Override
     public void mark() {
         delegate.mark();
@@ -68,9 +74,14 @@ public final class FileParserState implements ParserState {
         return delegate.getLine();
     }
 
+    @Override
+    public int getColumn() {
+        return delegate.getColumn();
+    }
+
     @Override
     public int getCharPosition() {
-        return delegate.getLine();
+        return delegate.getCharPosition();
     }
 
 }
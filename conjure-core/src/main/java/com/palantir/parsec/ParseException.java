@@ -29,19 +29,21 @@ public final class ParseException extends Exception {
 
     @Override
     public String getMessage() {
+        String charInfo = "at or before character " + state.getCharPosition();
+        String lineInfo = "on or before line " + state.getLine();
 
-        // sb is the next 100 characters of the text being parsed
+        // sb is the next 100 characters of the text being parsed; rewind afterwards so that the state, and hence
+        // the message, stay the same however often this is called
         StringBuilder sb = new StringBuilder();
         int curr;
         int counter = 0;
+        state.mark();
         curr = state.curr();
         while (-1 != curr && ++counter < 100) {
             sb.append((char) curr);
             curr = state.next();
         }
-
-        String charInfo = "at or before character " + state.getCharPosition();
-        String lineInfo = "on or before line " + state.getLine();
+        state.rewind();
 
         return message + "\n" + charInfo + "\n" + lineInfo + "\n" + sb.toString();
     }
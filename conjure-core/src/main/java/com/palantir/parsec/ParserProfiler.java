@@ -0,0 +1,146 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.parsec;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in instrumentation of parsers, enabled by running with {@code -Dcom.palantir.parsec.profile=true}.
+ *
+ * <p>While enabled, {@link #profile} decorates a parser to record, under the given name, how often it is invoked, how
+ * often it succeeds, and how many characters it consumes, as well as how often it fails, which {@link
+ * Parsers#gingerly} and {@link Parsers#or} then rewind, and how many characters those rewinds give back. Statistics
+ * of all parsers sharing a name are aggregated into one line of the {@link #report}, and are kept until the next
+ * {@link #reset}, which {@code Conjure.parse} calls at the start of every compilation. While disabled, {@link
+ * #profile} returns the parser itself and nothing is recorded, so that profiling costs nothing.
+ */
+public final class ParserProfiler {
+
+    private static final boolean ENABLED = Boolean.getBoolean("com.palantir.parsec.profile");
+    private static final Map<String, Stats> STATS = new ConcurrentHashMap<>();
+
+    private ParserProfiler() {}
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Returns a parser which records the statistics of {@code parser} under {@code name} if profiling is enabled, or
+     * {@code parser} itself otherwise.
+     */
+    public static <T> Parser<T> profile(String name, Parser<T> parser) {
+        return ENABLED ? new ProfilingParser<>(parser, STATS.computeIfAbsent(name, Stats::new)) : parser;
+    }
+
+    /** Formats the statistics recorded since the last reset, one line per invoked name, most invoked first. */
+    public static String report() {
+        StringBuilder sb = new StringBuilder(String.format("%-30s %12s %12s %12s %12s %12s %12s%n",
+                "parser", "invocations", "successes", "consumed", "failures", "rewound", "exceptions"));
+        STATS.values().stream()
+                .filter(stats -> stats.invocations.sum() > 0)
+                .sorted(Comparator.comparingLong((Stats stats) -> stats.invocations.sum()).reversed())
+                .forEach(stats -> sb.append(String.format("%-30s %12d %12d %12d %12d %12d %12d%n",
+                        stats.name,
+                        stats.invocations.sum(),
+                        stats.successes.sum(),
+                        stats.consumed.sum(),
+                        stats.failures.sum(),
+                        stats.rewound.sum(),
+                        stats.exceptions.sum())));
+        return sb.toString();
+    }
+
+    /**
+     * Zeroes the statistics recorded so far. Profiled parsers keep their statistics for as long as they live, so they
+     * are reset in place rather than discarded.
+     */
+    public static void reset() {
+        STATS.values().forEach(Stats::reset);
+    }
+
+    private static final class Stats {
+        private final String name;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder consumed = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder rewound = new LongAdder();
+        private final LongAdder exceptions = new LongAdder();
+
+        Stats(String name) {
+            this.name = name;
+        }
+
+        void reset() {
+            invocations.reset();
+            successes.reset();
+            consumed.reset();
+            failures.reset();
+            rewound.reset();
+            exceptions.reset();
+        }
+    }
+
+    /** Preserves the FIRST set of predictive parsers, so that profiling does not change which options are tried. */
+    private static final class ProfilingParser<T> implements PredictiveParser<T> {
+        private final Parser<T> delegate;
+        private final Stats stats;
+
+        ProfilingParser(Parser<T> delegate, Stats stats) {
+            this.delegate = delegate;
+            this.stats = stats;
+        }
+
+        @Override
+        public T parse(ParserState input) throws ParseException {
+            stats.invocations.increment();
+            int start = input.getCharPosition();
+            T result;
+            try {
+                result = delegate.parse(input);
+            } catch (ParseException | RuntimeException e) {
+                stats.exceptions.increment();
+                throw e;
+            }
+
+            int length = input.getCharPosition() - start;
+            if (Parsers.nullOrUnexpected(result)) {
+                stats.failures.increment();
+                stats.rewound.add(length);
+            } else {
+                stats.successes.increment();
+                stats.consumed.add(length);
+            }
+            return result;
+        }
+
+        @Override
+        public boolean canStartWith(int character) {
+            return !(delegate instanceof PredictiveParser)
+                    || ((PredictiveParser<?>) delegate).canStartWith(character);
+        }
+
+        @Override
+        public String toString() {
+            return stats.name + "(" + delegate + ")";
+        }
+    }
+}
@@ -47,8 +47,26 @@ public interface ParserState {
      */
     void rewind();
 
+    /**
+     * Consumes the longest run of characters, starting at the current one, which all belong to the given class.
+     *
+     * @return the consumed characters, which are empty if the current character does not belong to the class
+     */
+    default CharSequence consume(CharacterClass characters) {
+        StringBuilder sb = new StringBuilder();
+        int curr = curr();
+        while (curr != -1 && characters.isAllowed((char) curr)) {
+            sb.append((char) curr);
+            curr = next();
+        }
+        return sb;
+    }
+
     int getLine();
 
+    /** Returns the 1-based column of the current character within its line. */
+    int getColumn();
+
     int getCharPosition();
 
 }
@@ -20,22 +20,15 @@ import com.palantir.parsec.parsers.BetweenParser;
 import com.palantir.parsec.parsers.ExpectantParser;
 import com.palantir.parsec.parsers.ExpectationResult;
 import com.palantir.parsec.parsers.RawStringParser;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public final class Parsers {
 
     private Parsers() {}
 
-    private static final Parser<String> WHITESPACE = new RawStringParser(new RawStringParser.AllowableCharacters() {
-        @Override
-        public boolean isAllowed(char character) {
-            return Character.isWhitespace(character);
-        }
-
-        @Override
-        public String getDescription() {
-            return "Character.isWhitespace";
-        }
-    });
+    private static final Parser<String> WHITESPACE = new RawStringParser(CharacterClass.WHITESPACE);
 
     /**
      * Runs the prefix parser, followed by the `parser`, returning result of the latter.
@@ -106,7 +99,9 @@ public final class Parsers {
     }
 
     /**
-     * Parse either firstOption or iterate through otherOptions and return result.
+     * Parse either firstOption or iterate through otherOptions and return result. Options which are
+     * {@link PredictiveParser predictive} are only tried when they can start with the current character: for each
+     * ASCII character, the options worth trying are determined once, when the parser is created.
      *
      * @param <T> the type the parsers return
      * @param firstOption the first parser to try
@@ -115,22 +110,74 @@ public final class Parsers {
      */
     @SafeVarargs
     public static <T> Parser<T> or(final Parser<? extends T> firstOption, final Parser<? extends T>... otherOptions) {
-        return new Parser<T>() {
-            @Override
-            public T parse(ParserState input) throws ParseException {
-                T result = gingerly(firstOption).parse(input);
-                if (result != null) {
-                    return result;
+        List<Parser<? extends T>> options = new ArrayList<>(otherOptions.length + 1);
+        options.add(firstOption);
+        options.addAll(Arrays.asList(otherOptions));
+        return new ChoiceParser<>(options);
+    }
+
+    private static final class ChoiceParser<T> implements PredictiveParser<T> {
+        /** Options are looked up by character below this bound, with the end of input at the bound itself. */
+        private static final int TABLE_SIZE = 128;
+
+        private final List<Parser<? extends T>> options;
+        private final List<Parser<? extends T>> gingerlyOptions;
+        private final List<List<Parser<? extends T>>> optionsByCharacter;
+
+        ChoiceParser(List<Parser<? extends T>> options) {
+            this.options = options;
+            this.gingerlyOptions = new ArrayList<>(options.size());
+            for (Parser<? extends T> option : options) {
+                gingerlyOptions.add(gingerly(option));
+            }
+            this.optionsByCharacter = new ArrayList<>(TABLE_SIZE + 1);
+            for (int character = 0; character <= TABLE_SIZE; character++) {
+                List<Parser<? extends T>> viable = new ArrayList<>();
+                for (int i = 0; i < options.size(); i++) {
+                    if (canStartWith(options.get(i), character == TABLE_SIZE ? -1 : character)) {
+                        viable.add(gingerlyOptions.get(i));
+                    }
                 }
-                for (Parser<? extends T> nextOption : otherOptions) {
-                    result = gingerly(nextOption).parse(input);
+                optionsByCharacter.add(viable);
+            }
+        }
+
+        @Override
+        public T parse(ParserState input) throws ParseException {
+            int curr = input.curr();
+            T result = null;
+            if (curr < TABLE_SIZE) {
+                for (Parser<? extends T> option : optionsByCharacter.get(curr == -1 ? TABLE_SIZE : curr)) {
+                    result = option.parse(input);
                     if (result != null) {
                         return result;
                     }
                 }
                 return result;
             }
-        };
+
+            for (int i = 0; i < options.size(); i++) {
+                if (canStartWith(options.get(i), curr)) {
+                    result = gingerlyOptions.get(i).parse(input);
+                    if (result != null) {
+                        return result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public boolean canStartWith(int character) {
+            if (character < TABLE_SIZE) {
+                return !optionsByCharacter.get(character == -1 ? TABLE_SIZE : character).isEmpty();
+            }
+            return options.stream().anyMatch(option -> canStartWith(option, character));
+        }
+
+        private static boolean canStartWith(Parser<?> parser, int character) {
+            return !(parser instanceof PredictiveParser) || ((PredictiveParser<?>) parser).canStartWith(character);
+        }
     }
 
     public static ExpectantParser expect(String expectation) {
@@ -155,7 +202,7 @@ public final class Parsers {
             public T parse(ParserState input) throws ParseException {
                 T result = parser.parse(input);
 
-                if (input.next() != -1) {
+                if (input.curr() != -1) {
                     return null;
                 }
                 return result;
@@ -0,0 +1,35 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.parsec;
+
+/**
+ * A parser which declares which characters its input can start with, i.e. its FIRST set, so that
+ * {@link Parsers#or choices} between parsers can skip it without running it.
+ */
+public interface PredictiveParser<T> extends Parser<T> {
+
+    /**
+     * Returns whether this parser can succeed when the current character is {@code character}, or -1 at the end of
+     * the input. When this returns false, parsing must fail, i.e. return null or {@link
+     * com.palantir.parsec.parsers.ExpectationResult#INCORRECT}.
+     *
+     * @param character the current character
+     * @return false if this parser cannot succeed on the current character
+     */
+    boolean canStartWith(int character);
+
+}
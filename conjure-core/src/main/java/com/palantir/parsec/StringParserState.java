@@ -16,50 +16,97 @@
 
 package com.palantir.parsec;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
 
+/**
+ * A {@link ParserState} over any {@link CharSequence}, including a {@link java.nio.CharBuffer}. Marks are kept on a
+ * primitive stack, so marking and rewinding do not allocate; line and column are derived from the input only when
+ * asked for, which is typically just when reporting an error.
+ */
 public final class StringParserState implements ParserState {
 
+    private static final int INITIAL_MARKS = 16;
+
     private final CharSequence seq;
-    private final Deque<Integer> marks = new ArrayDeque<>();
+    private final int length;
+    private int[] marks = new int[INITIAL_MARKS];
+    private int markCount = 0;
     private int current = 0;
 
     public StringParserState(CharSequence str) {
         this.seq = str;
+        this.length = str.length();
     }
 
     @Override
     public int curr() {
-        return current < seq.length() ? seq.charAt(current) : -1;
+        return current < length ? seq.charAt(current) : -1;
     }
 
     @Override
     public int next() {
-        // not sure this matters, but we'll enforce that current
-        // never exceeds actual length by more than 1
-        current = (++current <= seq.length()) ? current : seq.length();
+        // current never exceeds the actual length by more than 1
+        if (current < length) {
+            current++;
+        }
         return curr();
     }
 
+    /** Scans the input in place and returns the consumed characters as a sub-sequence of it. */
+    @Override
+    public CharSequence consume(CharacterClass characters) {
+        int start = current;
+        while (current < length && characters.isAllowed(seq.charAt(current))) {
+            current++;
+        }
+        return seq.subSequence(start, current);
+    }
+
     @Override
     public void mark() {
-        marks.push(current);
+        if (markCount == marks.length) {
+            marks = Arrays.copyOf(marks, markCount * 2);
+        }
+        marks[markCount++] = current;
     }
 
     @Override
     public void rewind() {
-        current = marks.pop();
+        current = popMark();
     }
 
     @Override
     public void release() {
-        marks.pop();
+        popMark();
     }
 
+    private int popMark() {
+        if (markCount == 0) {
+            throw new NoSuchElementException("No mark to return to");
+        }
+        return marks[--markCount];
+    }
+
+    /** Returns the 1-based line of the current character. */
     @Override
     public int getLine() {
-        return 0;
+        int line = 1;
+        for (int i = 0; i < current; i++) {
+            if (seq.charAt(i) == '\n') {
+                line++;
+            }
+        }
+        return line;
+    }
+
+    @Override
+    public int getColumn() {
+        int lineStart = current;
+        while (lineStart > 0 && seq.charAt(lineStart - 1) != '\n') {
+            lineStart--;
+        }
+        return current - lineStart + 1;
     }
 
     @Override
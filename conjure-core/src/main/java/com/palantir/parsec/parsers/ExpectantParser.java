@@ -16,31 +16,44 @@
 
 package com.palantir.parsec.parsers;
 
-import com.palantir.parsec.Parser;
 import com.palantir.parsec.ParserState;
+import com.palantir.parsec.PredictiveParser;
 
-public final class ExpectantParser implements Parser<ExpectationResult> {
+/**
+ * Expects the input to continue with a fixed string. The input is compared in place, one character at a time, and
+ * parsing stops at the first character which does not match, so that a failed expectation, by far the most common
+ * outcome when trying alternatives, typically costs a single comparison.
+ */
+public final class ExpectantParser implements PredictiveParser<ExpectationResult> {
 
     private final String expectation;
+    private final char[] expected;
 
     public ExpectantParser(String expectation) {
         this.expectation = expectation;
+        this.expected = expectation.toCharArray();
+    }
+
+    @Override
+    public boolean canStartWith(int character) {
+        return expected.length == 0 || expected[0] == character;
     }
 
     @Override
     public ExpectationResult parse(ParserState input) {
-        StringBuilder sb = new StringBuilder();
         int curr = input.curr();
-        while (curr != -1 && sb.length() < expectation.length()) {
-            sb.append((char) curr);
+        for (char character : expected) {
+            if (curr != character) {
+                return ExpectationResult.INCORRECT;
+            }
             curr = input.next();
         }
+        return ExpectationResult.CORRECT;
+    }
 
-        if (sb.toString().equals(expectation)) {
-            return ExpectationResult.CORRECT;
-        } else {
-            return ExpectationResult.INCORRECT;
-        }
+    @Override
+    public String toString() {
+        return "ExpectantParser(" + expectation + ")";
     }
 
 }
@@ -16,23 +16,15 @@
 
 package com.palantir.parsec.parsers;
 
+import com.palantir.parsec.CharacterClass;
 import com.palantir.parsec.ParseException;
 import com.palantir.parsec.Parser;
 import com.palantir.parsec.ParserState;
 
 public final class IntegerParser implements Parser<Integer> {
 
-    private static final Parser<String> RAW_INT_PARSER = new RawStringParser(new RawStringParser.AllowableCharacters() {
-        @Override
-        public boolean isAllowed(char character) {
-            return Character.isDigit(character) || character == '-';
-        }
-
-        @Override
-        public String getDescription() {
-            return "Character.isDigit";
-        }
-    });
+    private static final Parser<String> RAW_INT_PARSER = new RawStringParser(
+            CharacterClass.of("Character.isDigit", c -> Character.isDigit(c) || c == '-'));
 
     @Override
     public Integer parse(ParserState input) throws ParseException {
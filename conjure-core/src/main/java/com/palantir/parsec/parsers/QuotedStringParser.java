@@ -16,13 +16,23 @@
 
 package com.palantir.parsec.parsers;
 
+import com.palantir.parsec.CharacterClass;
 import com.palantir.parsec.ParseException;
 import com.palantir.parsec.Parser;
 import com.palantir.parsec.ParserState;
 
+/**
+ * Parses a double-quoted string, in which a backslash escapes the following character. The text between escapes is
+ * scanned and copied in bulk rather than character by character.
+ */
 public final class QuotedStringParser implements Parser<String> {
 
+    private static final CharacterClass TEXT = CharacterClass.of("Unescaped text", c -> c != '"' && c != '\\');
+    private static final CharacterClass TEXT_WITHOUT_LINE_BREAKS =
+            CharacterClass.of("Unescaped text without line breaks", c -> c != '"' && c != '\\' && c != '\n');
+
     private final boolean respectLineBreaks;
+    private final CharacterClass text;
 
     public QuotedStringParser() {
         this(false);
@@ -30,38 +40,42 @@ public final class QuotedStringParser implements Parser<String> {
 
     public QuotedStringParser(boolean respectLineBreaks) {
         this.respectLineBreaks = respectLineBreaks;
+        this.text = respectLineBreaks ? TEXT : TEXT_WITHOUT_LINE_BREAKS;
     }
 
     @Override
     public String parse(ParserState input) throws ParseException {
-        StringBuilder sb = new StringBuilder();
-
         if (input.curr() != '"') {
             throw new ParseException("Expected a quoted string, but didn't observe a quote.", input);
         }
+        input.next();
 
-        int curr;
-        boolean escaped = false;
-        while ((curr = input.next()) != -1) {
-            if (escaped) {
-                escaped = false;
-            } else {
-                if (curr == '\\') {
-                    escaped = true;
-                    continue;
-                } else if (curr == '"') {
-                    input.next();
-                    break;
-                }
+        // only needed once the string turns out to contain escapes or dropped line breaks
+        StringBuilder sb = null;
+        while (true) {
+            CharSequence run = input.consume(text);
+            int curr = input.curr();
+            if (curr == '"') {
+                input.next();
+                return sb == null ? run.toString() : sb.append(run).toString();
             }
+
+            sb = sb == null ? new StringBuilder(run) : sb.append(run);
             if (curr == -1) {
-                throw new ParseException("Reached end of file while processing quoted string.", input);
-            }
-            if (respectLineBreaks || curr != '\n') {
-                sb.append((char) curr);
+                // an unterminated string runs to the end of the input
+                return sb.toString();
+            } else if (curr == '\\') {
+                int escaped = input.next();
+                if (escaped == -1) {
+                    return sb.toString();
+                }
+                if (respectLineBreaks || escaped != '\n') {
+                    sb.append((char) escaped);
+                }
             }
+            // skip the escaped character, or the dropped line break
+            input.next();
         }
-        return sb.toString();
     }
 
 }
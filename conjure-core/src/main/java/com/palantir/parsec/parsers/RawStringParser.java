@@ -16,40 +16,36 @@
 
 package com.palantir.parsec.parsers;
 
+import com.palantir.parsec.CharacterClass;
 import com.palantir.parsec.Parser;
 import com.palantir.parsec.ParserState;
 
 public final class RawStringParser implements Parser<String> {
 
-    private final AllowableCharacters condition;
+    private final CharacterClass condition;
 
     /**
      * Parses a "raw" string where the termination condition's default specifier accepts any string of non-whitespace
      * characters.
      */
     public RawStringParser() {
-        this(NO_WHITESPACE);
+        this(CharacterClass.NO_WHITESPACE);
     }
 
     /**
      * Parses a "raw" string where raw is specified by the supplied condition.
      *
-     * @param condition specifies the allowable characters in this string
+     * @param condition specifies the allowable characters in this string; its answers for ASCII characters are
+     *     precomputed, see {@link CharacterClass}
      */
     public RawStringParser(AllowableCharacters condition) {
-        this.condition = condition;
+        this.condition = CharacterClass.of(condition);
     }
 
     @Override
     public String parse(ParserState input) {
-        StringBuilder sb = new StringBuilder();
-        int curr = input.curr();
-        // not at end of the file and character is explicitly allowed
-        while (curr != -1 && condition.isAllowed((char) curr)) {
-            sb.append((char) curr);
-            curr = input.next();
-        }
-        return sb.length() > 0 ? sb.toString() : null;
+        CharSequence match = input.consume(condition);
+        return match.length() > 0 ? match.toString() : null;
     }
 
     @Override
@@ -63,16 +59,4 @@ public final class RawStringParser implements Parser<String> {
         String getDescription();
     }
 
-    private static final AllowableCharacters NO_WHITESPACE = new AllowableCharacters() {
-        @Override
-        public boolean isAllowed(char character) {
-            return !Character.isWhitespace(character);
-        }
-
-        @Override
-        public String getDescription() {
-            return "NO_WHITESPACE";
-        }
-    };
-
 }
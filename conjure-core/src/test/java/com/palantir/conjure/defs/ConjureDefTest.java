@@ -17,15 +17,32 @@
 package com.palantir.conjure.defs;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
 import com.google.common.collect.ImmutableList;
+import com.palantir.conjure.defs.validator.ConjureDiagnostic;
+import com.palantir.conjure.defs.validator.ConjureValidationException;
+import com.palantir.conjure.parser.AnnotatedConjureSourceFile;
 import com.palantir.conjure.parser.ConjureParser;
+import com.palantir.conjure.parser.types.ConjureType;
+import com.palantir.conjure.parser.types.TypesDefinition;
 import com.palantir.conjure.spec.ConjureDefinition;
+import com.palantir.conjure.spec.Type;
+import com.palantir.parsec.ParseException;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Optional;
 import org.junit.Ignore;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class ConjureDefTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
     @Test
     public void resolvesImportedAliases() {
@@ -34,6 +51,202 @@ public class ConjureDefTest {
         assertThat(conjureDefinition.getTypes()).hasSize(1);
     }
 
+    @Test
+    public void concurrentConversionMatchesSequentialConversion() {
+        List<AnnotatedConjureSourceFile> files = ImmutableList.of(
+                ConjureParser.parseAnnotated(new File("src/test/resources/example-conjure-imports.yml")),
+                ConjureParser.parseAnnotated(new File("src/test/resources/test-service.yml")),
+                ConjureParser.parseAnnotated(new File("src/test/resources/example-deprecation.yml")));
+        assertThat(ConjureParserUtils.parseConjureDef(files, 3))
+                .isEqualTo(ConjureParserUtils.parseConjureDef(files, 1));
+    }
+
+    @Test
+    public void concurrentConversionReportsFailingFile() throws IOException {
+        File invalid = temporaryFolder.newFile("invalid.yml");
+        Files.write(invalid.toPath(), ImmutableList.of(
+                "types:",
+                "  definitions:",
+                "    default-package: test.api.invalid",
+                "    objects:",
+                "      InvalidObject:",
+                "        fields:",
+                "          unknown: UnknownType"));
+        List<AnnotatedConjureSourceFile> files = ImmutableList.of(
+                ConjureParser.parseAnnotated(new File("src/test/resources/test-service.yml")),
+                ConjureParser.parseAnnotated(invalid));
+        assertThatThrownBy(() -> ConjureParserUtils.parseConjureDef(files, 2))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Encountered error trying to parse file '%s'", invalid)
+                .hasRootCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void concurrentValidationReportsFirstFailingEndpoint() throws IOException {
+        File invalid = temporaryFolder.newFile("invalid-service.yml");
+        writeServiceWithInvalidEndpoints(invalid, 50);
+        List<AnnotatedConjureSourceFile> files = ImmutableList.of(
+                ConjureParser.parseAnnotated(new File("src/test/resources/test-service.yml")),
+                ConjureParser.parseAnnotated(invalid));
+
+        for (int threads : new int[] {1, 4}) {
+            assertThatThrownBy(() -> ConjureParserUtils.parseConjureDef(files, threads))
+                    .isInstanceOf(RuntimeException.class)
+                    .hasMessage("Encountered error trying to parse file '%s'", invalid)
+                    .hasRootCauseInstanceOf(IllegalStateException.class)
+                    .hasStackTraceContaining("Endpoint 'endpoint0{http: GET");
+        }
+    }
+
+    @Test
+    public void sequentialConversionReportsErrorsInDeclarationOrder() throws IOException {
+        File invalid = temporaryFolder.newFile("invalid-service.yml");
+        Files.write(invalid.toPath(), ImmutableList.of(
+                "services:",
+                "  InvalidService:",
+                "    name: Invalid Service",
+                "    package: test.api.invalid",
+                "    endpoints:",
+                "      invalidEndpoint:",
+                "        http: GET /invalid",
+                "        args:",
+                "          body: string",
+                "      unconvertibleEndpoint:",
+                "        http: GET /unconvertible",
+                "        returns: UnknownType"));
+        List<AnnotatedConjureSourceFile> files = ImmutableList.of(ConjureParser.parseAnnotated(invalid));
+
+        // with one thread, the validation error of the first endpoint wins, as endpoints are validated when converted
+        assertThatThrownBy(() -> ConjureParserUtils.parseConjureDef(files, 1))
+                .hasMessage("Encountered error trying to parse file '%s'", invalid)
+                .hasStackTraceContaining("Endpoint 'invalidEndpoint{http: GET");
+        // concurrently, the whole file is converted before any endpoint is validated
+        assertThatThrownBy(() -> ConjureParserUtils.parseConjureDef(files, 2))
+                .hasMessage("Encountered error trying to parse file '%s'", invalid)
+                .hasStackTraceContaining("UnknownType");
+    }
+
+    @Test
+    public void collectsErrorsOfEveryEndpoint() throws IOException {
+        File invalid = temporaryFolder.newFile("invalid-service.yml");
+        writeServiceWithInvalidEndpoints(invalid, 50);
+        File unconvertible = temporaryFolder.newFile("unconvertible.yml");
+        Files.write(unconvertible.toPath(), ImmutableList.of(
+                "types:",
+                "  definitions:",
+                "    default-package: test.api",
+                "    objects:",
+                "      Foo:",
+                "        fields:",
+                "          bar: Missing"));
+        List<File> files = ImmutableList.of(new File("src/test/resources/test-service.yml"), invalid, unconvertible);
+
+        for (int threads : new int[] {1, 4}) {
+            assertThatThrownBy(() -> Conjure.parse(files, threads, Optional.empty(), 5))
+                    .isInstanceOfSatisfying(ConjureValidationException.class, e -> {
+                        assertThat(e.errorCount()).isEqualTo(51);
+                        assertThat(e.diagnostics()).hasSize(5);
+                        assertThat(e.diagnostics())
+                                .extracting(ConjureDiagnostic::ruleId, ConjureDiagnostic::file)
+                                .containsOnly(tuple("NO_GET_BODY_VALIDATOR", Optional.of(invalid)));
+                        assertThat(e.diagnostics().get(0).subject()).hasValue("InvalidService.endpoint0");
+                    })
+                    .hasMessageStartingWith("Found 51 errors in conjure definitions, showing the first 5:");
+        }
+        assertThatThrownBy(() -> Conjure.parse(ImmutableList.of(unconvertible), 1, Optional.empty(), 5))
+                .isInstanceOfSatisfying(ConjureValidationException.class, e -> assertThat(e.diagnostics())
+                        .extracting(ConjureDiagnostic::ruleId, ConjureDiagnostic::file)
+                        .containsExactly(tuple(ConjureDiagnostic.CONVERSION, Optional.of(unconvertible))));
+    }
+
+    @Test
+    public void collectsErrorsOfEndpointsAndTypesInOneCompilation() throws IOException {
+        File invalid = temporaryFolder.newFile("invalid-service.yml");
+        Files.write(invalid.toPath(), ImmutableList.of(
+                "types:",
+                "  definitions:",
+                "    default-package: test.api.invalid",
+                "    objects:",
+                "      NestedOptional:",
+                "        alias: optional<optional<string>>",
+                "services:",
+                "  InvalidService:",
+                "    name: Invalid Service",
+                "    package: test.api.invalid",
+                "    endpoints:",
+                "      endpoint:",
+                "        http: GET /endpoint",
+                "        args:",
+                "          body: string"));
+
+        assertThatThrownBy(() -> Conjure.parse(ImmutableList.of(invalid), 1, Optional.empty(), 10))
+                .isInstanceOfSatisfying(ConjureValidationException.class, e -> assertThat(e.diagnostics())
+                        .extracting(ConjureDiagnostic::ruleId, ConjureDiagnostic::subject)
+                        .containsExactly(
+                                tuple("NO_GET_BODY_VALIDATOR", Optional.of("InvalidService.endpoint")),
+                                tuple("NO_NESTED_OPTIONAL", Optional.of("NestedOptional"))));
+    }
+
+    @Test
+    public void doesNotReportReferencesToTypesOfUnconvertibleFiles() throws IOException {
+        File unconvertible = temporaryFolder.newFile("unconvertible.yml");
+        Files.write(unconvertible.toPath(), ImmutableList.of(
+                "types:",
+                "  definitions:",
+                "    default-package: test.api.unconvertible",
+                "    objects:",
+                "      Key:",
+                "        values:",
+                "          - FOO",
+                "services:",
+                "  UnconvertibleService:",
+                "    name: Unconvertible Service",
+                "    package: test.api.unconvertible",
+                "    endpoints:",
+                "      endpoint:",
+                "        http: POST /endpoint",
+                "        args:",
+                "          body: Missing"));
+        File importing = temporaryFolder.newFile("importing.yml");
+        Files.write(importing.toPath(), ImmutableList.of(
+                "types:",
+                "  conjure-imports:",
+                "    unconvertible: unconvertible.yml",
+                "  definitions:",
+                "    default-package: test.api.importing",
+                "    objects:",
+                "      KeyMap:",
+                "        alias: map<unconvertible.Key, string>",
+                "      KeyAlias:",
+                "        alias: unconvertible.Key",
+                "services:",
+                "  ImportingService:",
+                "    name: Importing Service",
+                "    package: test.api.importing",
+                "    endpoints:",
+                "      endpoint:",
+                "        http: POST /endpoint",
+                "        args:",
+                "          body: map<KeyAlias, string>"));
+
+        for (int threads : new int[] {1, 4}) {
+            assertThatThrownBy(() -> Conjure.parse(ImmutableList.of(importing, unconvertible), threads,
+                    Optional.empty(), 10))
+                    .isInstanceOfSatisfying(ConjureValidationException.class, e -> assertThat(e.diagnostics())
+                            .extracting(ConjureDiagnostic::ruleId, ConjureDiagnostic::file)
+                            .containsExactly(tuple(ConjureDiagnostic.CONVERSION, Optional.of(unconvertible))));
+        }
+    }
+
+    @Test
+    public void internsStructurallyEqualTypes() throws ParseException {
+        ConjureTypeParserVisitor visitor = new ConjureTypeParserVisitor(
+                new ConjureTypeParserVisitor.ByParsedRepresentationTypeNameResolver(TypesDefinition.builder().build()));
+        Type first = ConjureType.fromString("map<string, list<optional<datetime>>>").visit(visitor);
+        Type second = ConjureType.fromString("map<string, list<optional<datetime>>>").visit(visitor);
+        assertThat(second).isSameAs(first);
+    }
+
     // Test currently fails as it attempts to parse a TypeScript package name as a java package
     @Test
     @Ignore
@@ -41,4 +254,21 @@ public class ConjureDefTest {
         ConjureParserUtils.parseConjureDef(ImmutableList.of(
                 ConjureParser.parseAnnotated(new File("src/test/resources/example-external-types.yml"))));
     }
+
+    private static void writeServiceWithInvalidEndpoints(File file, int endpoints) throws IOException {
+        ImmutableList.Builder<String> lines = ImmutableList.<String>builder().add(
+                "services:",
+                "  InvalidService:",
+                "    name: Invalid Service",
+                "    package: test.api.invalid",
+                "    endpoints:");
+        for (int i = 0; i < endpoints; i++) {
+            lines.add(
+                    "      endpoint" + i + ":",
+                    "        http: GET /endpoint" + i,
+                    "        args:",
+                    "          body: string");
+        }
+        Files.write(file.toPath(), lines.build());
+    }
 }
@@ -0,0 +1,126 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure.defs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.palantir.conjure.parser.AnnotatedConjureSourceFile;
+import com.palantir.conjure.parser.ConjureParser;
+import com.palantir.conjure.spec.ConjureDefinition;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FragmentCacheTest {
+    private static final String BUILD = "build";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File cacheDir;
+    private File common;
+    private File api;
+
+    @Before
+    public void before() throws IOException {
+        cacheDir = temporaryFolder.newFolder("cache");
+        common = temporaryFolder.newFile("common.yml");
+        Files.write(common.toPath(), ImmutableList.of(
+                "types:",
+                "  definitions:",
+                "    default-package: test.api.common",
+                "    objects:",
+                "      CommonAlias:",
+                "        alias: string"));
+        api = temporaryFolder.newFile("api.yml");
+        Files.write(api.toPath(), ImmutableList.of(
+                "types:",
+                "  conjure-imports:",
+                "    common: common.yml",
+                "  definitions:",
+                "    default-package: test.api",
+                "    objects:",
+                "      ApiObject:",
+                "        fields:",
+                "          value: common.CommonAlias"));
+    }
+
+    @Test
+    public void roundTripsFragments() {
+        AnnotatedConjureSourceFile sourceFile = ConjureParser.parseAnnotated(api);
+        ConjureDefinition fragment =
+                ConjureParserUtils.parseConjureFiles(ImmutableList.of(sourceFile), 1).get(0);
+
+        new FragmentCache(cacheDir, BUILD).put(sourceFile, fragment);
+
+        assertThat(new FragmentCache(cacheDir, BUILD).get(api)).hasValue(fragment);
+    }
+
+    @Test
+    public void missesWhenFileChanges() throws IOException {
+        populate(api);
+        Files.write(api.toPath(), ImmutableList.of("# changed"), StandardOpenOption.APPEND);
+        assertThat(new FragmentCache(cacheDir, BUILD).get(api)).isEmpty();
+    }
+
+    @Test
+    public void replacesEntryWhenFileChanges() throws IOException {
+        populate(api);
+        Files.write(api.toPath(), ImmutableList.of("# changed"), StandardOpenOption.APPEND);
+        populate(api);
+        assertThat(cacheDir.list()).hasSize(1);
+        assertThat(new FragmentCache(cacheDir, BUILD).get(api)).isPresent();
+    }
+
+    @Test
+    public void missesWhenImportChanges() throws IOException {
+        populate(api);
+        Files.write(common.toPath(), ImmutableList.of("# changed"), StandardOpenOption.APPEND);
+        assertThat(new FragmentCache(cacheDir, BUILD).get(api)).isEmpty();
+    }
+
+    @Test
+    public void missesWhenBuildChanges() {
+        populate(api);
+        assertThat(new FragmentCache(cacheDir, "other-build").get(api)).isEmpty();
+    }
+
+    @Test
+    public void identifiesUnreleasedBuilds() {
+        assertThat(FragmentCache.create(cacheDir)).isPresent();
+    }
+
+    @Test
+    public void warmParseMatchesColdParse() {
+        ConjureDefinition cold = Conjure.parse(ImmutableList.of(api, common), 1, Optional.of(cacheDir));
+        ConjureDefinition warm = Conjure.parse(ImmutableList.of(api, common), 1, Optional.of(cacheDir));
+        assertThat(warm).isEqualTo(cold).isEqualTo(Conjure.parse(ImmutableList.of(api, common)));
+    }
+
+    private void populate(File file) {
+        AnnotatedConjureSourceFile sourceFile = ConjureParser.parseAnnotated(file);
+        new FragmentCache(cacheDir, BUILD).put(
+                sourceFile, ConjureParserUtils.parseConjureFiles(ImmutableList.of(sourceFile), 1).get(0));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure.defs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.palantir.conjure.spec.ConjureDefinition;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IncrementalCompilerTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File common;
+    private File api;
+    private File other;
+
+    @Before
+    public void before() throws IOException {
+        common = temporaryFolder.newFile("common.yml");
+        writeAlias(common, "test.api.common", "CommonAlias", "string");
+        api = temporaryFolder.newFile("api.yml");
+        Files.write(api.toPath(), ImmutableList.of(
+                "types:",
+                "  conjure-imports:",
+                "    common: common.yml",
+                "  definitions:",
+                "    default-package: test.api",
+                "    objects:",
+                "      ApiObject:",
+                "        fields:",
+                "          value: common.CommonAlias"));
+        other = temporaryFolder.newFile("other.yml");
+        writeAlias(other, "test.api.other", "OtherAlias", "string");
+    }
+
+    @Test
+    public void recompilesDependentsOfChangedImports() throws IOException {
+        IncrementalCompiler compiler = Conjure.incremental(1);
+        assertThat(compiler.compile(ImmutableList.of(api, other), ImmutableList.of()))
+                .isEqualTo(Conjure.parse(ImmutableList.of(api, other)));
+
+        // the package of the imported alias is visible in the converted field type of ApiObject
+        writeAlias(common, "test.api.changed", "CommonAlias", "string");
+        assertThat(compiler.compile(ImmutableList.of(api, other), ImmutableList.of(common)))
+                .isEqualTo(Conjure.parse(ImmutableList.of(api, other)));
+    }
+
+    @Test
+    public void recompilesChangedInputs() throws IOException {
+        IncrementalCompiler compiler = Conjure.incremental(2);
+        compiler.compile(ImmutableList.of(api, other), ImmutableList.of());
+
+        writeAlias(other, "test.api.other", "OtherAlias", "integer");
+        assertThat(compiler.compile(ImmutableList.of(api, other), ImmutableList.of(other)))
+                .isEqualTo(Conjure.parse(ImmutableList.of(api, other)));
+    }
+
+    @Test
+    public void followsAddedAndRemovedInputs() {
+        IncrementalCompiler compiler = Conjure.incremental(1);
+        compiler.compile(ImmutableList.of(api), ImmutableList.of());
+
+        ConjureDefinition added = compiler.compile(ImmutableList.of(api, other), ImmutableList.of());
+        assertThat(added).isEqualTo(Conjure.parse(ImmutableList.of(api, other)));
+
+        ConjureDefinition removed = compiler.compile(ImmutableList.of(other), ImmutableList.of());
+        assertThat(removed).isEqualTo(Conjure.parse(ImmutableList.of(other)));
+    }
+
+    private static void writeAlias(File file, String conjurePackage, String name, String type) throws IOException {
+        Files.write(file.toPath(), ImmutableList.of(
+                "types:",
+                "  definitions:",
+                "    default-package: " + conjurePackage,
+                "    objects:",
+                "      " + name + ":",
+                "        alias: " + type));
+    }
+}
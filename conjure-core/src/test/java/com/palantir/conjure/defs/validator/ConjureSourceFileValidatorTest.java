@@ -16,6 +16,7 @@
 
 package com.palantir.conjure.defs.validator;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -40,6 +41,7 @@ import com.palantir.conjure.spec.SetType;
 import com.palantir.conjure.spec.Type;
 import com.palantir.conjure.spec.TypeDefinition;
 import com.palantir.conjure.spec.TypeName;
+import com.palantir.conjure.spec.UnionDefinition;
 import org.junit.Test;
 
 public class ConjureSourceFileValidatorTest {
@@ -111,7 +113,87 @@ public class ConjureSourceFileValidatorTest {
 
         assertThatThrownBy(() -> ConjureDefinitionValidator.NO_RECURSIVE_TYPES.validate(conjureDef))
                 .isInstanceOf(IllegalStateException.class)
-                .hasMessageStartingWith("Illegal recursive data type: ");
+                .hasMessage("Illegal recursive data type: Bar -> Foo -> Bar");
+    }
+
+    @Test
+    public void testNoRecursiveType_anyField() {
+        ConjureDefinition conjureDef = ConjureDefinition.builder()
+                .version(1)
+                .types(TypeDefinition.object(ObjectDefinition.builder()
+                        .typeName(FOO)
+                        .fields(FieldDefinition.builder()
+                                .fieldName(FieldName.of("name"))
+                                .type(Type.primitive(PrimitiveType.STRING))
+                                .docs(DOCS)
+                                .build())
+                        .fields(field(FieldName.of("self"), "Foo"))
+                        .build()))
+                .build();
+
+        assertThatThrownBy(() -> ConjureDefinitionValidator.NO_RECURSIVE_TYPES.validate(conjureDef))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Illegal recursive data type: Foo -> Foo");
+    }
+
+    @Test
+    public void testNoRecursiveType_reportsEveryCycle() {
+        TypeName baz = TypeName.of("Baz", PACKAGE);
+        ConjureDefinition conjureDef = ConjureDefinition.builder()
+                .version(1)
+                .types(TypeDefinition.object(ObjectDefinition.builder()
+                        .typeName(FOO)
+                        .fields(field(FieldName.of("self"), "Foo"))
+                        .build()))
+                .types(TypeDefinition.alias(AliasDefinition.builder()
+                        .typeName(baz)
+                        .alias(Type.reference(BAR))
+                        .build()))
+                .types(TypeDefinition.object(ObjectDefinition.builder()
+                        .typeName(BAR)
+                        .fields(field(FieldName.of("baz"), "Baz"))
+                        .fields(field(FieldName.of("foo"), "Foo"))
+                        .build()))
+                .build();
+
+        assertThatThrownBy(() -> ConjureDefinitionValidator.NO_RECURSIVE_TYPES.validate(conjureDef))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Illegal recursive data type: Bar -> Baz -> Bar; Foo -> Foo");
+    }
+
+    @Test
+    public void testRecursiveTypeOkInUnion() {
+        ConjureDefinition conjureDef = ConjureDefinition.builder()
+                .version(1)
+                .types(TypeDefinition.union(UnionDefinition.builder()
+                        .typeName(FOO)
+                        .union(field(FieldName.of("self"), "Foo"))
+                        .union(FieldDefinition.builder()
+                                .fieldName(FieldName.of("name"))
+                                .type(Type.primitive(PrimitiveType.STRING))
+                                .docs(DOCS)
+                                .build())
+                        .build()))
+                .build();
+
+        ConjureDefinitionValidator.NO_RECURSIVE_TYPES.validate(conjureDef);
+    }
+
+    @Test
+    public void testNoRecursiveType_longAliasChain() {
+        ConjureDefinition.Builder builder = ConjureDefinition.builder().version(1);
+        int length = 10_000;
+        for (int i = 0; i < length; i++) {
+            builder.types(TypeDefinition.alias(AliasDefinition.builder()
+                    .typeName(TypeName.of("Alias" + i, PACKAGE))
+                    .alias(Type.reference(TypeName.of("Alias" + ((i + 1) % length), PACKAGE)))
+                    .build()));
+        }
+
+        assertThatThrownBy(() -> ConjureDefinitionValidator.NO_RECURSIVE_TYPES.validate(builder.build()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageStartingWith("Illegal recursive data type: Alias0 -> Alias1 -> Alias2 -> ")
+                .hasMessageEndingWith(" -> Alias9999 -> Alias0");
     }
 
     @Test
@@ -214,6 +296,103 @@ public class ConjureSourceFileValidatorTest {
                 .hasMessageStartingWith("Illegal map key found in object Foo");
     }
 
+    @Test
+    public void testValidateAll_reportsFirstViolatedRule() {
+        Type nestedOptional = Type.optional(OptionalType.of(Type.optional(OptionalType.of(
+                Type.primitive(PrimitiveType.STRING)))));
+        Type illegalMap = Type.map(MapType.of(
+                Type.list(ListType.of(Type.primitive(PrimitiveType.STRING))),
+                Type.primitive(PrimitiveType.STRING)));
+        ConjureDefinition conjureDef = ConjureDefinition.builder()
+                .version(1)
+                .types(TypeDefinition.object(ObjectDefinition.builder()
+                        .typeName(FOO)
+                        .fields(FieldDefinition.builder().fieldName(FieldName.of("map"))
+                                .type(illegalMap).docs(DOCS).build())
+                        .build()))
+                .types(TypeDefinition.alias(AliasDefinition.builder()
+                        .typeName(BAR)
+                        .alias(nestedOptional)
+                        .build()))
+                .build();
+
+        // the map key is visited first, but nested optionals are checked by an earlier rule
+        assertThatThrownBy(() -> ConjureDefinitionValidator.validateAll(conjureDef))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Illegal nested optionals found in alias Bar");
+    }
+
+    @Test
+    public void testCollectAll_reportsEveryViolatedRule() {
+        Type nestedOptional = Type.optional(OptionalType.of(Type.optional(OptionalType.of(
+                Type.primitive(PrimitiveType.STRING)))));
+        Type illegalMap = Type.map(MapType.of(
+                Type.list(ListType.of(Type.primitive(PrimitiveType.STRING))),
+                Type.primitive(PrimitiveType.STRING)));
+        ConjureDefinition conjureDef = ConjureDefinition.builder()
+                .version(1)
+                .types(TypeDefinition.object(ObjectDefinition.builder()
+                        .typeName(FOO)
+                        .fields(FieldDefinition.builder().fieldName(FieldName.of("map"))
+                                .type(illegalMap).docs(DOCS).build())
+                        .build()))
+                .types(TypeDefinition.alias(AliasDefinition.builder()
+                        .typeName(BAR)
+                        .alias(nestedOptional)
+                        .build()))
+                .types(TypeDefinition.object(ObjectDefinition.builder()
+                        .typeName(TypeName.of("Baz", PACKAGE))
+                        .fields(field(FieldName.of("self"), "Baz"))
+                        .build()))
+                .build();
+
+        assertThat(ConjureDefinitionValidator.collectAll(conjureDef))
+                .extracting(ConjureDiagnostic::format)
+                .containsExactly(
+                        "[ILLEGAL_MAP_KEYS] Foo: Illegal map key found in object Foo",
+                        "[NO_NESTED_OPTIONAL] Bar: Illegal nested optionals found in alias Bar",
+                        "[NO_RECURSIVE_TYPES] Illegal recursive data type: Baz -> Baz");
+    }
+
+    @Test
+    public void testValidateAll_recursiveAliases() {
+        ConjureDefinition conjureDef = ConjureDefinition.builder()
+                .version(1)
+                .types(TypeDefinition.alias(AliasDefinition.builder()
+                        .typeName(FOO)
+                        .alias(Type.reference(BAR))
+                        .build()))
+                .types(TypeDefinition.alias(AliasDefinition.builder()
+                        .typeName(BAR)
+                        .alias(Type.reference(FOO))
+                        .build()))
+                .build();
+
+        // every rule visits the aliases before the recursion is reported, so none of them may loop on it
+        assertThatThrownBy(() -> ConjureDefinitionValidator.validateAll(conjureDef))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Illegal recursive data type: Bar -> Foo -> Bar");
+        assertThat(ConjureDefinitionValidator.collectAll(conjureDef))
+                .extracting(ConjureDiagnostic::ruleId)
+                .contains("NO_RECURSIVE_TYPES");
+    }
+
+    @Test
+    public void testValidateAll_duplicateTypeNames() {
+        TypeDefinition alias = TypeDefinition.alias(AliasDefinition.builder()
+                .typeName(FOO)
+                .alias(Type.primitive(PrimitiveType.STRING))
+                .build());
+        ConjureDefinition conjureDef = ConjureDefinition.builder()
+                .version(1)
+                .types(alias)
+                .types(alias)
+                .build();
+
+        assertThatThrownBy(() -> ConjureDefinitionValidator.validateAll(conjureDef))
+                .hasMessageStartingWith("Type, error, and service names must be unique");
+    }
+
     private FieldDefinition field(FieldName name, String type) {
         return FieldDefinition.builder()
                 .fieldName(name)
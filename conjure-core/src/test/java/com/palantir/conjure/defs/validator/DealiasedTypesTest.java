@@ -0,0 +1,143 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure.defs.validator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.palantir.conjure.either.Either;
+import com.palantir.conjure.spec.AliasDefinition;
+import com.palantir.conjure.spec.ExternalReference;
+import com.palantir.conjure.spec.ListType;
+import com.palantir.conjure.spec.ObjectDefinition;
+import com.palantir.conjure.spec.PrimitiveType;
+import com.palantir.conjure.spec.Type;
+import com.palantir.conjure.spec.TypeDefinition;
+import com.palantir.conjure.spec.TypeName;
+import java.io.IOException;
+import org.junit.Test;
+
+public final class DealiasedTypesTest {
+    private static final TypeName OBJECT = TypeName.of("Object", "package");
+    private static final TypeName ALIAS = TypeName.of("Alias", "package");
+    private static final TypeName OTHER_ALIAS = TypeName.of("OtherAlias", "package");
+    private static final TypeName EXTERNAL_ALIAS = TypeName.of("ExternalAlias", "package");
+    private static final TypeName MISSING = TypeName.of("Missing", "package");
+
+    private static final TypeDefinition OBJECT_DEFINITION =
+            TypeDefinition.object(ObjectDefinition.builder().typeName(OBJECT).build());
+    private static final Type LIST = Type.list(ListType.of(Type.reference(OBJECT)));
+
+    @Test
+    public void testDealias_nonReferences() {
+        DealiasedTypes types = new DealiasedTypes(ImmutableMap.of());
+        assertThat(types.dealias(LIST).fold(left -> null, right -> right)).isEqualTo(LIST);
+        assertThat(types.dealias(Type.primitive(PrimitiveType.STRING)).fold(left -> null, right -> right))
+                .isEqualTo(Type.primitive(PrimitiveType.STRING));
+    }
+
+    @Test
+    public void testDealias_aliasChain() {
+        DealiasedTypes types = new DealiasedTypes(ImmutableMap.of(
+                OBJECT, OBJECT_DEFINITION,
+                ALIAS, alias(ALIAS, Type.reference(OTHER_ALIAS)),
+                OTHER_ALIAS, alias(OTHER_ALIAS, LIST),
+                EXTERNAL_ALIAS, alias(EXTERNAL_ALIAS, Type.external(ExternalReference.builder()
+                        .externalReference(TypeName.of("External", "java.lang"))
+                        .fallback(Type.reference(ALIAS))
+                        .build()))));
+
+        assertThat(types.dealias(Type.reference(OBJECT)).fold(left -> left, right -> null))
+                .isEqualTo(OBJECT_DEFINITION);
+        assertThat(types.dealias(Type.reference(ALIAS)).fold(left -> null, right -> right)).isEqualTo(LIST);
+        assertThat(types.dealias(Type.reference(EXTERNAL_ALIAS)).fold(left -> null, right -> right))
+                .isEqualTo(LIST);
+    }
+
+    @Test
+    public void testDealias_resolvedOnce() {
+        DealiasedTypes types = new DealiasedTypes(ImmutableMap.of(
+                ALIAS, alias(ALIAS, Type.reference(OTHER_ALIAS)),
+                OTHER_ALIAS, alias(OTHER_ALIAS, LIST)));
+
+        Either<TypeDefinition, Type> dealiased = types.dealias(Type.reference(ALIAS));
+        assertThat(types.dealias(Type.reference(ALIAS))).isSameAs(dealiased);
+        assertThat(types.dealias(Type.reference(OTHER_ALIAS))).isSameAs(dealiased);
+    }
+
+    @Test
+    public void testDealias_missingReference() {
+        DealiasedTypes types = new DealiasedTypes(ImmutableMap.of(
+                ALIAS, alias(ALIAS, Type.reference(MISSING))));
+
+        assertThatThrownBy(() -> types.dealias(Type.reference(ALIAS)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Referenced TypeDefinition not found in map of types for TypeName")
+                .hasMessageContaining("Missing");
+    }
+
+    @Test
+    public void testDealias_recursiveAlias() {
+        DealiasedTypes types = new DealiasedTypes(ImmutableMap.of(
+                ALIAS, alias(ALIAS, Type.reference(OTHER_ALIAS)),
+                OTHER_ALIAS, alias(OTHER_ALIAS, Type.reference(ALIAS)),
+                EXTERNAL_ALIAS, alias(EXTERNAL_ALIAS, Type.reference(ALIAS))));
+
+        assertThatThrownBy(() -> types.dealias(Type.reference(EXTERNAL_ALIAS)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageStartingWith("Cannot dealias recursive alias");
+    }
+
+    @Test
+    public void testDealias_unknownDefinition() throws IOException {
+        TypeDefinition unknown = new ObjectMapper()
+                .readValue("{\"type\": \"future\", \"future\": {}}", TypeDefinition.class);
+        DealiasedTypes types = new DealiasedTypes(ImmutableMap.of(
+                OBJECT, unknown,
+                ALIAS, alias(ALIAS, Type.reference(OBJECT))));
+
+        assertThatThrownBy(() -> types.dealias(Type.reference(OBJECT)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Unsupported type: future");
+        assertThatThrownBy(() -> types.dealias(Type.reference(ALIAS)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Unsupported type: future");
+    }
+
+    @Test
+    public void testIsUnconverted_followsAliases() {
+        DealiasedTypes types = new DealiasedTypes(ImmutableMap.of(
+                OBJECT, OBJECT_DEFINITION,
+                ALIAS, alias(ALIAS, Type.reference(OTHER_ALIAS)),
+                OTHER_ALIAS, alias(OTHER_ALIAS, Type.reference(MISSING))),
+                ImmutableSet.of(MISSING, OBJECT));
+
+        assertThat(types.isUnconverted(Type.reference(MISSING))).isTrue();
+        assertThat(types.isUnconverted(Type.reference(ALIAS))).isTrue();
+        assertThat(types.isUnconverted(Type.reference(OTHER_ALIAS))).isTrue();
+        // defined by another file, so it can be resolved
+        assertThat(types.isUnconverted(Type.reference(OBJECT))).isFalse();
+        assertThat(types.isUnconverted(LIST)).isFalse();
+    }
+
+    private static TypeDefinition alias(TypeName name, Type target) {
+        return TypeDefinition.alias(AliasDefinition.builder().typeName(name).alias(target).build());
+    }
+}
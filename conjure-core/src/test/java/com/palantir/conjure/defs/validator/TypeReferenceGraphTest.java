@@ -0,0 +1,78 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure.defs.validator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import com.google.common.collect.ImmutableList;
+import com.palantir.conjure.defs.validator.TypeReferenceGraph.Reference;
+import com.palantir.conjure.spec.AliasDefinition;
+import com.palantir.conjure.spec.FieldDefinition;
+import com.palantir.conjure.spec.FieldName;
+import com.palantir.conjure.spec.ListType;
+import com.palantir.conjure.spec.ObjectDefinition;
+import com.palantir.conjure.spec.OptionalType;
+import com.palantir.conjure.spec.Type;
+import com.palantir.conjure.spec.TypeDefinition;
+import com.palantir.conjure.spec.TypeName;
+import com.palantir.conjure.spec.UnionDefinition;
+import org.junit.Test;
+
+public final class TypeReferenceGraphTest {
+    private static final TypeName FOO = TypeName.of("Foo", "com.palantir.test");
+    private static final TypeName BAR = TypeName.of("Bar", "com.palantir.test");
+    private static final TypeName BAZ = TypeName.of("Baz", "com.palantir.test");
+    private static final TypeName QUX = TypeName.of("Qux", "com.palantir.test");
+
+    private final TypeReferenceGraph graph = TypeReferenceGraph.of(ImmutableList.of(
+            TypeDefinition.object(ObjectDefinition.builder()
+                    .typeName(FOO)
+                    .fields(field("bar", Type.reference(BAR)))
+                    .fields(field("baz", Type.optional(OptionalType.of(Type.reference(BAZ)))))
+                    .fields(field("bars", Type.list(ListType.of(Type.reference(BAR)))))
+                    .build()),
+            TypeDefinition.alias(AliasDefinition.builder().typeName(BAR).alias(Type.reference(FOO)).build()),
+            TypeDefinition.union(UnionDefinition.builder()
+                    .typeName(BAZ)
+                    .union(field("foo", Type.reference(FOO)))
+                    .build()),
+            TypeDefinition.object(ObjectDefinition.builder()
+                    .typeName(QUX)
+                    .fields(field("qux", Type.optional(OptionalType.of(Type.reference(QUX)))))
+                    .build())));
+
+    @Test
+    public void labelsReferences() {
+        assertThat(graph.types()).containsExactly(BAR, BAZ, FOO, QUX);
+        // a type referenced both ways is required
+        assertThat(graph.references(FOO)).containsExactly(
+                entry(BAR, Reference.REQUIRED), entry(BAZ, Reference.OPTIONAL));
+        assertThat(graph.references(BAR)).containsExactly(entry(FOO, Reference.REQUIRED));
+        assertThat(graph.references(BAZ)).containsExactly(entry(FOO, Reference.OPTIONAL));
+        assertThat(graph.references(QUX)).containsExactly(entry(QUX, Reference.OPTIONAL));
+    }
+
+    @Test
+    public void findsCyclesOfRequiredReferencesOnly() {
+        assertThat(graph.requiredCycles()).containsExactly(ImmutableList.of(BAR, FOO, BAR));
+    }
+
+    private static FieldDefinition field(String name, Type type) {
+        return FieldDefinition.builder().fieldName(FieldName.of(name)).type(type).build();
+    }
+}
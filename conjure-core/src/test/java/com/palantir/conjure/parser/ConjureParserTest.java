@@ -37,6 +37,7 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.List;
 import java.util.StringJoiner;
+import java.util.stream.Collectors;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -190,6 +191,72 @@ public class ConjureParserTest {
         assertThat(result.types().conjureImports()).isNotEmpty();
     }
 
+    @Test
+    public void testSessionSharesImportsAcrossFiles() throws IOException {
+        List<String> common = ImmutableList.of("commonOne", "commonTwo");
+        List<String> apis = ImmutableList.of("apiOne", "apiTwo", "apiThree");
+        generateFiles(common, ImmutableList.of());
+        generateFiles(apis, common);
+
+        ConjureParser.Session session = ConjureParser.newSession();
+        for (String api : apis) {
+            AnnotatedConjureSourceFile result = session.parseAnnotated(
+                    temporaryFolder.getRoot().toPath().resolve(api + ".yml").toFile());
+            assertThat(result.conjureSourceFile().types().conjureImports()).hasSize(common.size());
+        }
+
+        // each file is read exactly once, every other import is served from the cache
+        assertThat(session.cacheMisses()).isEqualTo(apis.size() + common.size());
+        assertThat(session.cacheHits()).isEqualTo((apis.size() - 1) * common.size());
+    }
+
+    @Test
+    public void testSessionCachesTypeExpressions() {
+        ConjureParser.Session session = ConjureParser.newSession();
+        ConjureSourceFile result = session.parse(new File("src/test/resources/test-service.yml"));
+
+        assertThat(result).isEqualTo(ConjureParser.parse(new File("src/test/resources/test-service.yml")));
+        assertThat(session.typeCacheStats().hitCount()).isPositive();
+        // the cache belongs to the session, other sessions start empty
+        assertThat(ConjureParser.newSession().typeCacheStats().requestCount()).isZero();
+    }
+
+    @Test
+    public void testSessionStillDetectsCyclicImports() {
+        ConjureParser.Session session = ConjureParser.newSession();
+        session.parse(new File("src/test/resources/example-conjure-imports.yml"));
+        assertThatThrownBy(() -> session.parse(new File("src/test/resources/example-recursive-imports.yml")))
+                .isInstanceOf(ConjureParser.CyclicImportException.class)
+                .hasMessageNotContaining("example-conjure-imports.yml");
+    }
+
+    @Test
+    public void testParallelParsingMatchesSequentialParsing() throws IOException {
+        List<String> inners = ImmutableList.of("innerOne", "innerTwo", "innerThree", "innerFour");
+        List<String> apis = ImmutableList.of("apiOne", "apiTwo", "apiThree", "apiFour", "apiFive", "apiSix");
+        generateFiles(inners, ImmutableList.of());
+        generateFiles(apis, inners);
+        List<File> files = apis.stream()
+                .map(api -> temporaryFolder.getRoot().toPath().resolve(api + ".yml").toFile())
+                .collect(Collectors.toList());
+
+        ConjureParser.Session parallelSession = ConjureParser.newSession();
+        List<AnnotatedConjureSourceFile> parallel = parallelSession.parseAnnotated(files, 4);
+        List<AnnotatedConjureSourceFile> sequential = ConjureParser.newSession().parseAnnotated(files, 1);
+
+        assertThat(parallel).isEqualTo(sequential);
+        assertThat(parallelSession.cacheMisses()).isEqualTo(apis.size() + inners.size());
+    }
+
+    @Test
+    public void testParallelParsingThrowsParserExceptions() {
+        List<File> files = ImmutableList.of(
+                new File("src/test/resources/example-conjure-imports.yml"),
+                new File("src/test/resources/example-recursive-imports.yml"));
+        assertThatThrownBy(() -> ConjureParser.newSession().parseAnnotated(files, 2))
+                .isInstanceOf(ConjureParser.CyclicImportException.class);
+    }
+
     private void generateFiles(List<String> names, List<String> importedNamespaces) throws IOException {
         for (String name : names) {
             File file = temporaryFolder.newFile(name + ".yml");
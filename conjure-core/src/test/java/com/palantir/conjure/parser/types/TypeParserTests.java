@@ -17,6 +17,7 @@
 package com.palantir.conjure.parser.types;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.palantir.conjure.parser.types.builtin.AnyType;
@@ -178,6 +179,49 @@ public final class TypeParserTests {
         TypeParser.INSTANCE.parse("[]");
     }
 
+    @Test(expected = ParseException.class)
+    public void testParser_invalidSingleTrailingCharacter() throws ParseException {
+        TypeParser.INSTANCE.parse("string]");
+    }
+
+    @Test
+    public void testParser_trailingWhitespace() throws ParseException {
+        assertThat(TypeParser.INSTANCE.parse("list<string>  "))
+                .isEqualTo(ListType.of(PrimitiveType.STRING));
+    }
+
+    @Test
+    public void testParser_reportsPositionOfInvalidSuffix() {
+        assertThatThrownBy(() -> TypeParser.INSTANCE.parse("list<string>[]"))
+                .isInstanceOfSatisfying(ParseException.class, e -> {
+                    assertThat(e.getState().getCharPosition()).isEqualTo(12);
+                    assertThat(e.getMessage())
+                            .isEqualTo("Unexpected trailing characters in type: list<string>[]\n"
+                                    + "at or before character 12\non or before line 1\n[]")
+                            .isEqualTo(e.getMessage());
+                });
+    }
+
+    @Test
+    public void testParser_rejectsIdentifiersStartingWithKeyword() {
+        // keywords are matched as prefixes, so the rest of the identifier is left over
+        for (String type : new String[] {
+                "sets.Foo", "maps.Bar", "lists.X", "optionals.Y", "anything.Z", "binaryish.Z", "datetimes",
+                "list<anything>"}) {
+            assertThatThrownBy(() -> TypeParser.INSTANCE.parse(type)).isInstanceOf(ParseException.class);
+        }
+    }
+
+    @Test
+    public void testCache_cachesTypeExpressions() throws ParseException {
+        ConjureTypeCache cache = new ConjureTypeCache();
+        ConjureType first = cache.parse("map<string, list<Foo>>");
+
+        assertThat(cache.parse("map<string, list<Foo>>")).isSameAs(first);
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.stats().missCount()).isEqualTo(1);
+    }
+
     @Test
     public void testDeserializer_stringType() throws IOException {
         assertThat(new ObjectMapper().readValue("\"string\"", ConjureType.class))
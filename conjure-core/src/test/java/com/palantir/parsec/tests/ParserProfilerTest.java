@@ -0,0 +1,82 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.parsec.tests;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.palantir.conjure.parser.types.ConjureType;
+import com.palantir.parsec.ParseException;
+import com.palantir.parsec.Parser;
+import com.palantir.parsec.ParserProfiler;
+import com.palantir.parsec.StringParserState;
+import com.palantir.parsec.parsers.RawStringParser;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Runs only with profiling enabled, i.e. in the {@code profiledTest} task. */
+public final class ParserProfilerTest {
+
+    @Before
+    public void before() {
+        Assume.assumeTrue(ParserProfiler.isEnabled());
+        ParserProfiler.reset();
+    }
+
+    @Test
+    public void recordsTypeExpressionsParsedByCompilations() throws ParseException {
+        ConjureType.fromString("map<string, list<Foo>>");
+
+        String report = ParserProfiler.report();
+        // invocations, successes, consumed, failures, rewound, exceptions
+        assertThat(columns(report, "type.map")).containsExactly("1", "1", "22", "0", "0", "0");
+        assertThat(columns(report, "type.list")).containsExactly("1", "1", "9", "0", "0", "0");
+        assertThat(report).contains("type.reference ");
+    }
+
+    @Test
+    public void recordsDecoratedParsers() throws ParseException {
+        Parser<String> parser = ParserProfiler.profile("raw", new RawStringParser());
+
+        assertThat(parser.parse(new StringParserState("abc"))).isEqualTo("abc");
+        assertThat(columns(ParserProfiler.report(), "raw")).containsExactly("1", "1", "3", "0", "0", "0");
+    }
+
+    @Test
+    public void resetZeroesStatisticsOfExistingParsers() throws ParseException {
+        Parser<String> parser = ParserProfiler.profile("rawReset", new RawStringParser());
+        parser.parse(new StringParserState("abc"));
+
+        ParserProfiler.reset();
+        assertThat(ParserProfiler.report()).doesNotContain("rawReset");
+
+        parser.parse(new StringParserState("de"));
+        assertThat(columns(ParserProfiler.report(), "rawReset")).containsExactly("1", "1", "2", "0", "0", "0");
+    }
+
+    private static List<String> columns(String report, String name) {
+        for (String line : report.split("\\R")) {
+            List<String> columns = Arrays.asList(line.trim().split("\\s+"));
+            if (columns.get(0).equals(name)) {
+                return columns.subList(1, columns.size());
+            }
+        }
+        throw new AssertionError("No statistics for " + name + " in " + report);
+    }
+}
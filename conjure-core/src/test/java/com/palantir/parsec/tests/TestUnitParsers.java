@@ -17,13 +17,20 @@
 package com.palantir.parsec.tests;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import com.palantir.parsec.CharacterClass;
+import com.palantir.parsec.FileParserState;
 import com.palantir.parsec.ParseException;
 import com.palantir.parsec.Parser;
+import com.palantir.parsec.ParserProfiler;
+import com.palantir.parsec.ParserState;
 import com.palantir.parsec.Parsers;
+import com.palantir.parsec.PredictiveParser;
 import com.palantir.parsec.StringParserState;
 import com.palantir.parsec.parsers.BetweenParser;
 import com.palantir.parsec.parsers.BooleanParser;
+import com.palantir.parsec.parsers.DefaultingDispatchingParser;
 import com.palantir.parsec.parsers.DispatchingParser;
 import com.palantir.parsec.parsers.ExpectantParser;
 import com.palantir.parsec.parsers.ExpectationResult;
@@ -31,14 +38,24 @@ import com.palantir.parsec.parsers.ListParser;
 import com.palantir.parsec.parsers.MapParser;
 import com.palantir.parsec.parsers.QuotedStringParser;
 import com.palantir.parsec.parsers.RawStringParser;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.junit.Assume;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public final class TestUnitParsers {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void testQuotedStringParser() throws ParseException {
         assertThat(new QuotedStringParser(false).parse(new StringParserState("\"Test 123\""))).isEqualTo("Test 123");
@@ -50,6 +67,16 @@ public final class TestUnitParsers {
                 .isEqualTo("Test \n\n123");
     }
 
+    @Test
+    public void testQuotedStringParserStopsAfterClosingQuote() throws ParseException {
+        StringParserState state = new StringParserState("\"a\\\\b\\\nc\" rest");
+        assertThat(new QuotedStringParser(false).parse(state)).isEqualTo("a\\bc");
+        assertThat(state.curr()).isEqualTo(' ');
+
+        assertThat(new QuotedStringParser(false).parse(new StringParserState("\"unterminated")))
+                .isEqualTo("unterminated");
+    }
+
     @Test
     public void testRawStringParser() {
         assertThat(new RawStringParser().parse(new StringParserState("a:b123"))).isEqualTo("a:b123");
@@ -58,6 +85,21 @@ public final class TestUnitParsers {
         assertThat(new RawStringParser().parse(new StringParserState("ab123\n"))).isEqualTo("ab123");
     }
 
+    @Test
+    public void testCharacterClass() {
+        CharacterClass letters = CharacterClass.of("Character.isLetter", Character::isLetter);
+        assertThat(letters.isAllowed('a')).isTrue();
+        assertThat(letters.isAllowed('Z')).isTrue();
+        assertThat(letters.isAllowed('1')).isFalse();
+        assertThat(letters.isAllowed('\u00e9')).isTrue();
+        assertThat(letters.isAllowed('\u2028')).isFalse();
+
+        StringParserState state = new StringParserState("ab\u00e9c d");
+        assertThat(state.consume(letters).toString()).isEqualTo("ab\u00e9c");
+        assertThat(state.curr()).isEqualTo(' ');
+        assertThat(state.consume(letters).length()).isZero();
+    }
+
     @Test
     public void testDispatchingParser() throws ParseException {
         Map<String, Parser<String>> map = new HashMap<String, Parser<String>>();
@@ -71,6 +113,32 @@ public final class TestUnitParsers {
                 .parse(new StringParserState("dir1 abc\ndir2 \"def\n\"\n"))).isEqualTo("def");
     }
 
+    @Test
+    public void testDispatchingParserMatchesWholeDirectives() throws ParseException {
+        Map<String, Parser<String>> map = new HashMap<String, Parser<String>>();
+        map.put("dir", new RawStringParser());
+        map.put("dir1", new QuotedStringParser());
+
+        assertThat(new DispatchingParser<String>(map, Parsers.whitespace())
+                .parse(new StringParserState("dir1 \"abc\" dir def"))).isEqualTo("def");
+        assertThatThrownBy(() -> new DispatchingParser<String>(map, Parsers.whitespace())
+                .parse(new StringParserState("dir abc di def")))
+                .isInstanceOf(ParseException.class)
+                .hasMessageStartingWith("Unknown directive 'di'.");
+    }
+
+    @Test
+    public void testDefaultingDispatchingParser() throws ParseException {
+        Map<String, Parser<String>> map = new HashMap<String, Parser<String>>();
+        map.put("dir1", new RawStringParser());
+        DefaultingDispatchingParser<String> parser = new DefaultingDispatchingParser<>(map, Parsers.whitespace());
+        parser.setDefaultParser(Parsers.prefix(Parsers.whitespace(), new RawStringParser()));
+
+        StringParserState state = new StringParserState("dir1 abc other");
+        assertThat(parser.parse(state)).isEqualTo("other");
+        assertThat(state.curr()).isEqualTo(-1);
+    }
+
     @Test
     public void testExpectantParser() {
         assertThat(new ExpectantParser("abcdef").parse(new StringParserState("abcdef")))
@@ -81,6 +149,18 @@ public final class TestUnitParsers {
                 .isEqualTo(ExpectationResult.INCORRECT);
     }
 
+    @Test
+    public void testExpectantParserStopsAtFirstMismatch() {
+        StringParserState state = new StringParserState("abxdef");
+        assertThat(new ExpectantParser("abcdef").parse(state)).isEqualTo(ExpectationResult.INCORRECT);
+        assertThat(state.getCharPosition()).isEqualTo(2);
+
+        assertThat(new ExpectantParser("abc").canStartWith('a')).isTrue();
+        assertThat(new ExpectantParser("abc").canStartWith('b')).isFalse();
+        assertThat(new ExpectantParser("abc").canStartWith(-1)).isFalse();
+        assertThat(new ExpectantParser("").canStartWith(-1)).isTrue();
+    }
+
     @Test
     public void testBetweenParser() throws ParseException {
         assertThat(new BetweenParser<String>(new ExpectantParser("{"),
@@ -156,6 +236,34 @@ public final class TestUnitParsers {
                 .isEqualTo("abcdef");
     }
 
+    @Test
+    public void testOrParserSkipsOptionsWhichCannotStart() throws ParseException {
+        PredictiveParser<String> startsWithA = new PredictiveParser<String>() {
+            @Override
+            public boolean canStartWith(int character) {
+                return character == 'a';
+            }
+
+            @Override
+            public String parse(ParserState input) {
+                throw new AssertionError("Tried on unexpected character: " + (char) input.curr());
+            }
+        };
+
+        Parser<String> parser = Parsers.or(startsWithA, new QuotedStringParser());
+        assertThat(parser.parse(new StringParserState("\"abcdef\""))).isEqualTo("abcdef");
+        assertThat(((PredictiveParser<String>) parser).canStartWith('a')).isTrue();
+    }
+
+    @Test
+    public void testProfilerIsTransparentWhenDisabled() {
+        Assume.assumeFalse(ParserProfiler.isEnabled());
+        Parser<String> parser = new RawStringParser();
+
+        assertThat(ParserProfiler.profile("raw", parser)).isSameAs(parser);
+        assertThat(ParserProfiler.report()).doesNotContain("raw");
+    }
+
     private static final Parser<String> rsp = Parsers.prefix(Parsers.whitespace(), new RawStringParser());
     private static final Parser<Boolean> bp = Parsers.prefix(Parsers.whitespace(), new BooleanParser());
 
@@ -175,6 +283,52 @@ public final class TestUnitParsers {
         assertThat(rsp.parse(state)).isEqualTo("123");
     }
 
+    @Test
+    public void testStringParserStateNestedMarks() {
+        StringParserState state = new StringParserState("abcdefghijklmnopqrstuvwxyz0123456789");
+        for (int i = 0; i < 30; i++) {
+            state.mark();
+            state.next();
+        }
+        for (int i = 0; i < 29; i++) {
+            state.release();
+        }
+        state.rewind();
+
+        assertThat(state.getCharPosition()).isZero();
+        assertThat(state.curr()).isEqualTo('a');
+    }
+
+    @Test
+    public void testStringParserStateLineAndColumn() {
+        StringParserState state = new StringParserState("ab\ncd\nef");
+        assertThat(state.getLine()).isEqualTo(1);
+        assertThat(state.getColumn()).isEqualTo(1);
+
+        for (int i = 0; i < 4; i++) {
+            state.next();
+        }
+        assertThat(state.curr()).isEqualTo('d');
+        assertThat(state.getCharPosition()).isEqualTo(4);
+        assertThat(state.getLine()).isEqualTo(2);
+        assertThat(state.getColumn()).isEqualTo(2);
+    }
+
+    @Test
+    public void testFileParserState() throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), "ab\ncd".getBytes(StandardCharsets.UTF_8));
+        FileParserState state = new FileParserState(file);
+        state.next();
+        state.next();
+        state.next();
+
+        assertThat(state.curr()).isEqualTo('c');
+        assertThat(state.getCharPosition()).isEqualTo(3);
+        assertThat(state.getLine()).isEqualTo(2);
+        assertThat(state.getColumn()).isEqualTo(1);
+    }
+
     @Test
     public void testEofParser() throws ParseException {
         assertThat(Parsers.eof(new ExpectantParser("abc"))
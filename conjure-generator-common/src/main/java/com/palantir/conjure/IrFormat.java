@@ -0,0 +1,95 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.palantir.conjure.spec.ConjureDefinition;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Locale;
+
+/** Encodings in which a {@link ConjureDefinition} can be stored in an IR file. */
+public enum IrFormat {
+    /** The standard, human-readable IR. */
+    JSON(new JsonFactory()),
+    /**
+     * Binary encoding of the same data model, using Jackson's Smile format. Repeated names and string values, such as
+     * the packages and names of referenced types, are written once and back-referenced afterwards, which makes files
+     * considerably smaller and faster to read than the equivalent JSON.
+     */
+    SMILE(new SmileFactory().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES));
+
+    /** Smile files start with the header ':)\n', which can never start a JSON document. */
+    private static final byte[] SMILE_HEADER = {':', ')', '\n'};
+
+    private final ObjectMapper mapper;
+
+    IrFormat(JsonFactory factory) {
+        this.mapper = new ObjectMapper(factory)
+                .registerModule(new Jdk8Module())
+                .setSerializationInclusion(JsonInclude.Include.NON_ABSENT);
+    }
+
+    /**
+     * Returns a new {@link ObjectMapper} configured to read and write IR in this format. Callers may configure the
+     * returned mapper further.
+     */
+    public ObjectMapper newObjectMapper() {
+        return mapper.copy();
+    }
+
+    /** Parses a format from its case-insensitive name, e.g. {@code json} or {@code smile}. */
+    public static IrFormat fromString(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "Unknown IR format '" + value + "', expected one of " + Arrays.toString(values()), e);
+        }
+    }
+
+    /** Reads a {@link ConjureDefinition} from the given IR file, detecting whether it is JSON or Smile encoded. */
+    public static ConjureDefinition read(File file) throws IOException {
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+            return detect(input).mapper.readValue(input, ConjureDefinition.class);
+        }
+    }
+
+    private static IrFormat detect(InputStream input) throws IOException {
+        input.mark(SMILE_HEADER.length);
+        byte[] header = new byte[SMILE_HEADER.length];
+        int read = 0;
+        while (read < header.length) {
+            int count = input.read(header, read, header.length - read);
+            if (count < 0) {
+                break;
+            }
+            read += count;
+        }
+        input.reset();
+        return Arrays.equals(header, SMILE_HEADER) ? SMILE : JSON;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.collect.ImmutableList;
+import com.palantir.conjure.spec.ConjureDefinition;
+import com.palantir.conjure.spec.Documentation;
+import com.palantir.conjure.spec.FieldDefinition;
+import com.palantir.conjure.spec.FieldName;
+import com.palantir.conjure.spec.ListType;
+import com.palantir.conjure.spec.ObjectDefinition;
+import com.palantir.conjure.spec.PrimitiveType;
+import com.palantir.conjure.spec.Type;
+import com.palantir.conjure.spec.TypeDefinition;
+import com.palantir.conjure.spec.TypeName;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IrFormatTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ConjureDefinition definition = createDefinition(50);
+
+    @Test
+    public void readsJson() throws IOException {
+        File file = write(IrFormat.JSON);
+        assertThat(IrFormat.read(file)).isEqualTo(definition);
+    }
+
+    @Test
+    public void readsSmile() throws IOException {
+        File file = write(IrFormat.SMILE);
+        assertThat(IrFormat.read(file)).isEqualTo(definition);
+    }
+
+    @Test
+    public void smileIsSmallerThanJson() throws IOException {
+        assertThat(write(IrFormat.SMILE).length()).isLessThan(write(IrFormat.JSON).length());
+    }
+
+    @Test
+    public void parsesFormatNames() {
+        assertThat(IrFormat.fromString("smile")).isEqualTo(IrFormat.SMILE);
+        assertThat(IrFormat.fromString("JSON")).isEqualTo(IrFormat.JSON);
+        assertThatThrownBy(() -> IrFormat.fromString("xml"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unknown IR format 'xml'");
+    }
+
+    private File write(IrFormat format) throws IOException {
+        File file = folder.newFile();
+        format.newObjectMapper().writeValue(file, definition);
+        return file;
+    }
+
+    private static ConjureDefinition createDefinition(int size) {
+        List<TypeDefinition> types = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            types.add(TypeDefinition.object(ObjectDefinition.builder()
+                    .typeName(TypeName.of("Object" + i, "com.palantir.conjure.test"))
+                    .fields(ImmutableList.of(
+                            FieldDefinition.builder()
+                                    .fieldName(FieldName.of("previous"))
+                                    .type(Type.list(ListType.of(Type.reference(
+                                            TypeName.of("Object" + (i - 1), "com.palantir.conjure.test")))))
+                                    .docs(Documentation.of("The previous object."))
+                                    .build(),
+                            FieldDefinition.builder()
+                                    .fieldName(FieldName.of("name"))
+                                    .type(Type.primitive(PrimitiveType.STRING))
+                                    .build()))
+                    .build()));
+        }
+        return ConjureDefinition.builder()
+                .version(1)
+                .types(types)
+                .build();
+    }
+}
@@ -16,13 +16,16 @@
 
 package com.palantir.conjure.cli;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.palantir.conjure.IrFormat;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.immutables.value.Value;
@@ -35,11 +38,53 @@ public abstract class CliConfiguration {
 
     abstract Map<String, Object> extensions();
 
+    /** Number of worker threads used to parse the input files. */
+    @Value.Default
+    int threads() {
+        return 1;
+    }
+
+    /** Number of errors reported before compilation fails; with more than 1, all errors are collected. */
+    @Value.Default
+    int maxErrors() {
+        return 1;
+    }
+
+    /** Whether the IR file is pretty-printed. */
+    @Value.Default
+    boolean prettyPrint() {
+        return true;
+    }
+
+    /** Encoding of the IR file. */
+    @Value.Default
+    IrFormat irFormat() {
+        return IrFormat.JSON;
+    }
+
+    /** Directory in which converted definitions are cached between invocations, if any. */
+    abstract Optional<File> cacheDir();
+
+    @Value.Check
+    protected final void check() {
+        Preconditions.checkArgument(threads() >= 1, "Number of threads must be at least 1: %s", threads());
+        Preconditions.checkArgument(
+                maxErrors() >= 1, "Maximum number of errors must be at least 1: %s", maxErrors());
+    }
+
     static Builder builder() {
         return new Builder();
     }
 
-    static CliConfiguration create(String input, String outputIrFile, Map<String, Object> extensions) {
+    static CliConfiguration create(
+            String input,
+            String outputIrFile,
+            Map<String, Object> extensions,
+            int threads,
+            int maxErrors,
+            Optional<String> cacheDir,
+            boolean prettyPrint,
+            IrFormat irFormat) {
         File inputFile = new File(input);
 
         Collection<File> inputFiles;
@@ -54,7 +99,28 @@ public abstract class CliConfiguration {
             throw new RuntimeException("Output IR file should not be a directory: " + outputFile);
         }
 
-        return new Builder().inputFiles(inputFiles).outputIrFile(outputFile).extensions(extensions).build();
+        Optional<File> cacheDirFile = cacheDir.map(File::new);
+        if (cacheDirFile.filter(File::isFile).isPresent()) {
+            throw new RuntimeException("Cache directory should not be a file: " + cacheDirFile.get());
+        }
+        if (cacheDirFile.isPresent()) {
+            // the cache directory may live inside the input directory; its entries are not conjure definitions
+            Path cachePath = cacheDirFile.get().toPath().toAbsolutePath().normalize();
+            inputFiles = inputFiles.stream()
+                    .filter(file -> !file.toPath().toAbsolutePath().normalize().startsWith(cachePath))
+                    .collect(Collectors.toList());
+        }
+
+        return new Builder()
+                .inputFiles(inputFiles)
+                .outputIrFile(outputFile)
+                .extensions(extensions)
+                .threads(threads)
+                .maxErrors(maxErrors)
+                .cacheDir(cacheDirFile)
+                .prettyPrint(prettyPrint)
+                .irFormat(irFormat)
+                .build();
     }
 
     private static Collection<File> resolveInputFiles(File input) throws IOException {
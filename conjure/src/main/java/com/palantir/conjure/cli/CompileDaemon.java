@@ -0,0 +1,195 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.conjure.cli;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.BaseEncoding;
+import com.palantir.conjure.parser.ConjureParser;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import picocli.CommandLine;
+
+/**
+ * A long-lived compile server, which keeps a warm JVM around so that repeated compilations skip class loading and
+ * JIT warm-up. It also keeps one {@link ConjureParser.Session} across compilations, so that files which did not
+ * change since an earlier compilation, typically shared imports, are not read and deserialized again.
+ * <p>
+ * Each connection carries a single request: one line holding the daemon's secret token, followed by one line holding
+ * the JSON-encoded arguments of a {@link ConjureCli.CompileCommand}, answered by one line holding a JSON object with
+ * an optional {@code error} message.
+ * <p>
+ * The port is reachable by every local user, so requests are only served if they carry the token, which the daemon
+ * writes on startup to a file that only its own user can read, see {@link #writeToken(Path)}.
+ */
+final class CompileDaemon {
+    private static final String ERROR = "error";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private CompileDaemon() {}
+
+    /** The default directory holding token files, {@code ~/.conjure}. */
+    static Path defaultTokenDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".conjure");
+    }
+
+    /** The file holding the token of the daemon listening on the given port. */
+    static Path tokenFile(Path tokenDirectory, int port) {
+        return tokenDirectory.resolve("daemon-" + port + ".token");
+    }
+
+    /**
+     * Generates a new random token and writes it to the given file, replacing any previous one. On POSIX file
+     * systems, the file and any directory created for it are only accessible to the current user.
+     */
+    static String writeToken(Path tokenFile) throws IOException {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String token = BaseEncoding.base16().lowerCase().encode(bytes);
+
+        boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        FileAttribute<Set<PosixFilePermission>> ownerOnlyDirectory =
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------"));
+        FileAttribute<Set<PosixFilePermission>> ownerOnlyFile =
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"));
+        Path directory = tokenFile.toAbsolutePath().getParent();
+        if (!Files.isDirectory(directory)) {
+            if (posix) {
+                Files.createDirectories(directory, ownerOnlyDirectory);
+            } else {
+                Files.createDirectories(directory);
+            }
+        }
+        // create the file afresh, so that it never exists with wider permissions than these
+        Files.deleteIfExists(tokenFile);
+        if (posix) {
+            Files.createFile(tokenFile, ownerOnlyFile);
+        } else {
+            Files.createFile(tokenFile);
+        }
+        Files.write(tokenFile, token.getBytes(StandardCharsets.UTF_8));
+        return token;
+    }
+
+    static String readToken(Path tokenFile) throws IOException {
+        return new String(Files.readAllBytes(tokenFile), StandardCharsets.UTF_8).trim();
+    }
+
+    /**
+     * Handles compile requests carrying the given token on the given socket, one at a time, until the socket is
+     * closed. A request which fails is answered with its error and does not stop the daemon, unless it fails with an
+     * {@link Error} other than a {@link StackOverflowError}, after which the state of the JVM cannot be trusted.
+     */
+    @SuppressWarnings("BanSystemErr")
+    static void serve(ServerSocket serverSocket, String token) {
+        ConjureParser.Session session = ConjureParser.newSession();
+        while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept()) {
+                handle(socket, token, session);
+            } catch (IOException | RuntimeException e) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println("Failed to handle compile request: " + e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the given compile arguments to the daemon listening on the given loopback port and waits up to
+     * {@code timeout} for it to finish, after which a {@link java.net.SocketTimeoutException} is thrown. Paths in
+     * {@code args} must be absolute, as the daemon may run in a different working directory.
+     */
+    static void forward(int port, String token, List<String> args, Duration timeout) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setSoTimeout(Math.toIntExact(timeout.toMillis()));
+            write(socket, token);
+            write(socket, ConjureCli.OBJECT_MAPPER.writeValueAsString(args));
+            Map<String, String> response = ConjureCli.OBJECT_MAPPER.readValue(
+                    read(socket), new TypeReference<Map<String, String>>() {});
+            if (response.containsKey(ERROR)) {
+                throw new RuntimeException("Conjure daemon failed to compile: " + response.get(ERROR));
+            }
+        }
+    }
+
+    @SuppressWarnings("BanSystemErr")
+    private static void handle(Socket socket, String token, ConjureParser.Session session) throws IOException {
+        BufferedReader reader =
+                new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        if (!MessageDigest.isEqual(
+                token.getBytes(StandardCharsets.UTF_8), read(reader).getBytes(StandardCharsets.UTF_8))) {
+            write(socket, ConjureCli.OBJECT_MAPPER.writeValueAsString(ImmutableMap.of(ERROR, "Invalid daemon token")));
+            return;
+        }
+        List<String> args = ConjureCli.OBJECT_MAPPER.readValue(read(reader), new TypeReference<List<String>>() {});
+        Map<String, String> response;
+        try {
+            ConjureCli.CompileCommand command =
+                    CommandLine.populateCommand(new ConjureCli.CompileCommand(), args.toArray(new String[0]));
+            ConjureCli.CompileCommand.generate(command.getConfiguration(), session);
+            response = ImmutableMap.of();
+        } catch (RuntimeException | StackOverflowError e) {
+            // e.g. a StackOverflowError on a pathological input must fail this request only, not the daemon; the
+            // client reports the message like a local compilation would, so the stack trace is only printed here
+            System.err.println("Failed to compile: " + Throwables.getStackTraceAsString(e));
+            response = ImmutableMap.of(ERROR, Objects.toString(e.getMessage(), e.toString()));
+        }
+        write(socket, ConjureCli.OBJECT_MAPPER.writeValueAsString(response));
+    }
+
+    private static String read(Socket socket) throws IOException {
+        return read(new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)));
+    }
+
+    private static String read(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            throw new IOException("Connection closed before a message was received");
+        }
+        return line;
+    }
+
+    private static void write(Socket socket, String line) throws IOException {
+        Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+        // the default, compact printer never emits newlines, and tokens are hex, so every message is exactly one line
+        writer.write(line);
+        writer.write('\n');
+        writer.flush();
+    }
+}
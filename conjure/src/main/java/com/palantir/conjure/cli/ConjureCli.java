@@ -19,16 +19,33 @@ package com.palantir.conjure.cli;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+import com.palantir.conjure.IrFormat;
 import com.palantir.conjure.defs.Conjure;
+import com.palantir.conjure.parser.ConjureParser;
 import com.palantir.conjure.spec.ConjureDefinition;
 import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
+import java.io.File;
 import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import javax.annotation.Nullable;
 import picocli.CommandLine;
 
@@ -36,7 +53,7 @@ import picocli.CommandLine;
         name = "conjure",
         description = "CLI to generate Conjure IR from Conjure YML definitions.",
         mixinStandardHelpOptions = true,
-        subcommands = { ConjureCli.CompileCommand.class })
+        subcommands = { ConjureCli.CompileCommand.class, ConjureCli.DaemonCommand.class })
 public final class ConjureCli implements Runnable {
     public static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
             .registerModule(new Jdk8Module())
@@ -56,6 +73,9 @@ public final class ConjureCli implements Runnable {
             mixinStandardHelpOptions = true,
             usageHelpWidth = 120)
     public static final class CompileCommand implements Runnable {
+        private static final Map<IrFormat, ObjectMapper> MAPPERS = Arrays.stream(IrFormat.values())
+                .collect(Maps.toImmutableEnumMap(Function.identity(), IrFormat::newObjectMapper));
+
         @CommandLine.Parameters(paramLabel = "<input>",
                 description = "Path to the input conjure YML definition file, or directory containing multiple such "
                         + "files.",
@@ -73,6 +93,61 @@ public final class ConjureCli implements Runnable {
         @Nullable
         private String extensions;
 
+        @CommandLine.Option(
+                names = "--threads",
+                description = "Number of worker threads used to parse the input files. Defaults to ${DEFAULT-VALUE}.",
+                defaultValue = "1")
+        private int threads;
+
+        @CommandLine.Option(
+                names = "--max-errors",
+                description = "Maximum number of errors to report. With more than 1, all endpoints, services and "
+                        + "rules are checked, rather than failing on the first error. Defaults to ${DEFAULT-VALUE}.",
+                defaultValue = "1")
+        private int maxErrors;
+
+        @CommandLine.Option(
+                names = "--cache-dir",
+                description = "Directory in which to cache converted definitions between invocations. Files that "
+                        + "did not change, and none of whose imports changed, are not parsed again.")
+        @Nullable
+        private String cacheDir;
+
+        @CommandLine.Option(
+                names = "--pretty",
+                negatable = true,
+                description = "Pretty-print the IR file. Use --no-pretty for a smaller file that is faster to write.",
+                defaultValue = "true")
+        private boolean prettyPrint;
+
+        @CommandLine.Option(
+                names = "--ir-format",
+                description = "Encoding of the IR file: 'json', or 'smile' for a compact binary file that "
+                        + "generators read with IrFormat.read. Defaults to ${DEFAULT-VALUE}.",
+                defaultValue = "json")
+        private String irFormat;
+
+        @CommandLine.Option(
+                names = "--daemon-port",
+                description = "Forward the compilation to a daemon started with 'conjure daemon' that listens on "
+                        + "this loopback port. Compiles locally if no daemon is running.")
+        @Nullable
+        private Integer daemonPort;
+
+        @CommandLine.Option(
+                names = "--daemon-token-dir",
+                description = "Directory from which to read the token of the daemon given by --daemon-port. "
+                        + "Defaults to ~/.conjure.")
+        @Nullable
+        private String daemonTokenDir;
+
+        @CommandLine.Option(
+                names = "--daemon-timeout",
+                description = "Seconds to wait for the daemon given by --daemon-port to finish the compilation, "
+                        + "after which it is compiled locally instead. Defaults to ${DEFAULT-VALUE}.",
+                defaultValue = "60")
+        private int daemonTimeoutSeconds;
+
         @CommandLine.Unmatched
         @Nullable
         private List<String> unmatchedOptions;
@@ -83,18 +158,48 @@ public final class ConjureCli implements Runnable {
             if (unmatchedOptions != null && !unmatchedOptions.isEmpty()) {
                 System.err.println("Ignoring unknown options: " + unmatchedOptions);
             }
+            if (daemonPort != null) {
+                Path tokenFile = CompileDaemon.tokenFile(tokenDirectory(daemonTokenDir), daemonPort);
+                try {
+                    CompileDaemon.forward(
+                            daemonPort,
+                            CompileDaemon.readToken(tokenFile),
+                            getDaemonArguments(),
+                            Duration.ofSeconds(daemonTimeoutSeconds));
+                    return;
+                } catch (NoSuchFileException e) {
+                    System.err.println("No conjure daemon token in " + tokenFile + ", compiling locally");
+                } catch (ConnectException e) {
+                    System.err.println("No conjure daemon listening on port " + daemonPort + ", compiling locally");
+                } catch (SocketTimeoutException e) {
+                    System.err.println("Conjure daemon on port " + daemonPort + " did not answer within "
+                            + daemonTimeoutSeconds + " seconds, compiling locally");
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to communicate with conjure daemon on port " + daemonPort, e);
+                }
+            }
             CliConfiguration config = getConfiguration();
             generate(config);
         }
 
         @VisibleForTesting
         static void generate(CliConfiguration config) {
+            generate(config, ConjureParser.newSession());
+        }
+
+        /** Compiles as {@link #generate(CliConfiguration)} does, reading files through the given session. */
+        static void generate(CliConfiguration config, ConjureParser.Session session) {
             ConjureDefinition definition = ConjureDefinition.builder()
-                    .from(Conjure.parse(config.inputFiles()))
+                    .from(Conjure.parse(
+                            config.inputFiles(), config.threads(), config.cacheDir(), config.maxErrors(), session))
                     .extensions(config.extensions())
                     .build();
+            ObjectMapper mapper = MAPPERS.get(config.irFormat());
+            ObjectWriter writer = config.prettyPrint() && config.irFormat() == IrFormat.JSON
+                    ? mapper.writerWithDefaultPrettyPrinter()
+                    : mapper.writer();
             try {
-                OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(config.outputIrFile(), definition);
+                writer.writeValue(config.outputIrFile(), definition);
             } catch (IOException e) {
                 throw new RuntimeException("Failed to serialize IR file to " + config.outputIrFile(), e);
             }
@@ -107,8 +212,81 @@ public final class ConjureCli implements Runnable {
                     output,
                     Optional.ofNullable(extensions)
                             .map(ConjureCli::parseExtensions)
-                            .orElseGet(Collections::emptyMap));
+                            .orElseGet(Collections::emptyMap),
+                    threads,
+                    maxErrors,
+                    Optional.ofNullable(cacheDir),
+                    prettyPrint,
+                    IrFormat.fromString(irFormat));
         }
+
+        /** Arguments which reproduce this command in a daemon, with all paths made absolute. */
+        @VisibleForTesting
+        List<String> getDaemonArguments() {
+            List<String> args = new ArrayList<>();
+            args.add(new File(input).getAbsolutePath());
+            args.add(new File(output).getAbsolutePath());
+            if (extensions != null) {
+                args.add("--extensions");
+                args.add(extensions);
+            }
+            args.add("--threads");
+            args.add(Integer.toString(threads));
+            args.add("--max-errors");
+            args.add(Integer.toString(maxErrors));
+            if (cacheDir != null) {
+                args.add("--cache-dir");
+                args.add(new File(cacheDir).getAbsolutePath());
+            }
+            if (!prettyPrint) {
+                args.add("--no-pretty");
+            }
+            args.add("--ir-format");
+            args.add(irFormat);
+            return args;
+        }
+    }
+
+    @CommandLine.Command(name = "daemon",
+            description = "Run a long-lived compile server on a loopback port, to which 'compile --daemon-port' "
+                    + "forwards compilations so they skip JVM startup and warm-up.",
+            mixinStandardHelpOptions = true,
+            usageHelpWidth = 120)
+    public static final class DaemonCommand implements Runnable {
+        @CommandLine.Option(
+                names = "--port",
+                description = "Loopback port to listen on. Defaults to a free port, which is printed on startup.",
+                defaultValue = "0")
+        private int port;
+
+        @CommandLine.Option(
+                names = "--token-dir",
+                description = "Directory in which to write the token that compile requests must carry, readable "
+                        + "only by the current user. Defaults to ~/.conjure.")
+        @Nullable
+        private String tokenDir;
+
+        @SuppressWarnings("BanSystemOut")
+        @Override
+        public void run() {
+            try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+                Path tokenFile = CompileDaemon.tokenFile(tokenDirectory(tokenDir), serverSocket.getLocalPort());
+                String token = CompileDaemon.writeToken(tokenFile);
+                try {
+                    System.out.println("Conjure daemon listening on port " + serverSocket.getLocalPort()
+                            + ", token written to " + tokenFile);
+                    CompileDaemon.serve(serverSocket, token);
+                } finally {
+                    Files.deleteIfExists(tokenFile);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to run conjure daemon on port " + port, e);
+            }
+        }
+    }
+
+    private static Path tokenDirectory(@Nullable String tokenDir) {
+        return tokenDir != null ? Paths.get(tokenDir) : CompileDaemon.defaultTokenDirectory();
     }
 
     static Map<String, Object> parseExtensions(String extensions) {
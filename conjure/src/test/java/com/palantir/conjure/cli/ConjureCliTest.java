@@ -20,9 +20,20 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.google.common.collect.ImmutableList;
+import com.palantir.conjure.IrFormat;
+import com.palantir.conjure.defs.Conjure;
+import com.palantir.conjure.defs.validator.ConjureValidationException;
 import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
 import java.io.File;
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.time.Duration;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -31,6 +42,7 @@ import picocli.CommandLine;
 import picocli.CommandLine.PicocliException;
 
 public final class ConjureCliTest {
+    private static final Duration TIMEOUT = Duration.ofMinutes(1);
 
     @Rule
     public TemporaryFolder folder = new TemporaryFolder();
@@ -61,6 +73,92 @@ public final class ConjureCliTest {
         assertThat(cmd.getConfiguration()).isEqualTo(expectedConfiguration);
     }
 
+    @Test
+    public void parsesThreadsOption() {
+        String[] args = {"compile", inputFile.getAbsolutePath(), outputFile.getAbsolutePath(), "--threads", "4"};
+        CliConfiguration expectedConfiguration = CliConfiguration.builder()
+                .inputFiles(ImmutableList.of(inputFile))
+                .outputIrFile(outputFile)
+                .threads(4)
+                .build();
+        ConjureCli.CompileCommand cmd = new CommandLine(new ConjureCli()).parse(args).get(1).getCommand();
+        assertThat(cmd.getConfiguration()).isEqualTo(expectedConfiguration);
+    }
+
+    @Test
+    public void throwsWhenThreadsIsNotPositive() {
+        String[] args = {"compile", inputFile.getAbsolutePath(), outputFile.getAbsolutePath(), "--threads", "0"};
+        ConjureCli.CompileCommand cmd = new CommandLine(new ConjureCli()).parse(args).get(1).getCommand();
+        assertThatThrownBy(cmd::getConfiguration)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Number of threads must be at least 1");
+    }
+
+    @Test
+    public void parsesMaxErrorsOption() {
+        String[] args = {"compile", inputFile.getAbsolutePath(), outputFile.getAbsolutePath(), "--max-errors", "10"};
+        CliConfiguration expectedConfiguration = CliConfiguration.builder()
+                .inputFiles(ImmutableList.of(inputFile))
+                .outputIrFile(outputFile)
+                .maxErrors(10)
+                .build();
+        ConjureCli.CompileCommand cmd = new CommandLine(new ConjureCli()).parse(args).get(1).getCommand();
+        assertThat(cmd.getConfiguration()).isEqualTo(expectedConfiguration);
+        assertThat(cmd.getDaemonArguments()).containsSequence("--max-errors", "10");
+    }
+
+    @Test
+    public void throwsWhenMaxErrorsIsNotPositive() {
+        String[] args = {"compile", inputFile.getAbsolutePath(), outputFile.getAbsolutePath(), "--max-errors", "0"};
+        ConjureCli.CompileCommand cmd = new CommandLine(new ConjureCli()).parse(args).get(1).getCommand();
+        assertThatThrownBy(cmd::getConfiguration)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Maximum number of errors must be at least 1");
+    }
+
+    @Test
+    public void parsesCacheDirOption() {
+        File cacheDir = new File(folder.getRoot(), "cache");
+        String[] args = {
+                "compile",
+                inputFile.getAbsolutePath(),
+                outputFile.getAbsolutePath(),
+                "--cache-dir", cacheDir.getAbsolutePath()};
+        CliConfiguration expectedConfiguration = CliConfiguration.builder()
+                .inputFiles(ImmutableList.of(inputFile))
+                .outputIrFile(outputFile)
+                .cacheDir(cacheDir)
+                .build();
+        ConjureCli.CompileCommand cmd = new CommandLine(new ConjureCli()).parse(args).get(1).getCommand();
+        assertThat(cmd.getConfiguration()).isEqualTo(expectedConfiguration);
+    }
+
+    @Test
+    public void excludesCacheDirFromInputFiles() throws IOException {
+        File cacheDir = new File(inputFile.getParentFile(), "cache");
+        assertThat(cacheDir.mkdir()).isTrue();
+        File.createTempFile("entry", ".json", cacheDir);
+        String[] args = {
+                "compile",
+                folder.getRoot().getAbsolutePath(),
+                outputFile.getAbsolutePath(),
+                "--cache-dir", cacheDir.getAbsolutePath()};
+        ConjureCli.CompileCommand cmd = new CommandLine(new ConjureCli()).parse(args).get(1).getCommand();
+        assertThat(cmd.getConfiguration().inputFiles()).containsExactly(inputFile);
+    }
+
+    @Test
+    public void parsesNoPrettyOption() {
+        String[] args = {"compile", inputFile.getAbsolutePath(), outputFile.getAbsolutePath(), "--no-pretty"};
+        CliConfiguration expectedConfiguration = CliConfiguration.builder()
+                .inputFiles(ImmutableList.of(inputFile))
+                .outputIrFile(outputFile)
+                .prettyPrint(false)
+                .build();
+        ConjureCli.CompileCommand cmd = new CommandLine(new ConjureCli()).parse(args).get(1).getCommand();
+        assertThat(cmd.getConfiguration()).isEqualTo(expectedConfiguration);
+    }
+
     @Test
     public void discoversFilesInDirectory() {
         String[] args = {"compile", folder.getRoot().getAbsolutePath(), outputFile.getAbsolutePath()};
@@ -122,6 +220,186 @@ public final class ConjureCliTest {
         assertThat(outputFile.isFile()).isTrue();
     }
 
+    @Test
+    public void generatesCodeWithCache() throws IOException {
+        CliConfiguration configuration = CliConfiguration.builder()
+                .inputFiles(ImmutableList.of(new File("src/test/resources/test-service.yml")))
+                .outputIrFile(outputFile)
+                .cacheDir(folder.newFolder("cache"))
+                .build();
+        ConjureCli.CompileCommand.generate(configuration);
+        String coldOutput = new String(Files.readAllBytes(outputFile.toPath()), StandardCharsets.UTF_8);
+        ConjureCli.CompileCommand.generate(configuration);
+        String warmOutput = new String(Files.readAllBytes(outputFile.toPath()), StandardCharsets.UTF_8);
+        assertThat(warmOutput).isEqualTo(coldOutput);
+    }
+
+    @Test
+    public void forwardsCompilationToDaemon() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            File tokenDir = folder.newFolder("tokens");
+            String token = CompileDaemon.writeToken(
+                    CompileDaemon.tokenFile(tokenDir.toPath(), serverSocket.getLocalPort()));
+            Thread daemon = new Thread(() -> CompileDaemon.serve(serverSocket, token));
+            daemon.start();
+
+            String[] args = {
+                    "compile",
+                    new File("src/test/resources/test-service.yml").getPath(),
+                    outputFile.getAbsolutePath(),
+                    "--daemon-port", Integer.toString(serverSocket.getLocalPort()),
+                    "--daemon-token-dir", tokenDir.getAbsolutePath()};
+            ConjureCli.CompileCommand cmd = new CommandLine(new ConjureCli()).parse(args).get(1).getCommand();
+            assertThat(cmd.getDaemonArguments()).allSatisfy(arg -> assertThat(arg).doesNotStartWith("src"));
+            cmd.run();
+            assertThat(outputFile.isFile()).isTrue();
+
+            String[] invalidArgs = {
+                    "compile",
+                    inputFile.getAbsolutePath(),
+                    outputFile.getAbsolutePath(),
+                    "--daemon-port", Integer.toString(serverSocket.getLocalPort()),
+                    "--daemon-token-dir", tokenDir.getAbsolutePath()};
+            ConjureCli.CompileCommand invalidCmd =
+                    new CommandLine(new ConjureCli()).parse(invalidArgs).get(1).getCommand();
+            assertThatThrownBy(invalidCmd::run)
+                    .isInstanceOf(RuntimeException.class)
+                    .hasMessageContaining("Conjure daemon failed to compile")
+                    .hasMessageContaining("MismatchedInputException");
+        }
+    }
+
+    @Test
+    public void daemonRejectsRequestsWithoutToken() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            File tokenFile = new File(folder.getRoot(), "daemon.token");
+            String token = CompileDaemon.writeToken(tokenFile.toPath());
+            assertThat(CompileDaemon.readToken(tokenFile.toPath())).isEqualTo(token);
+            if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                assertThat(Files.getPosixFilePermissions(tokenFile.toPath()))
+                        .containsExactlyInAnyOrder(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE);
+            }
+            Thread daemon = new Thread(() -> CompileDaemon.serve(serverSocket, token));
+            daemon.start();
+
+            List<String> args = ImmutableList.of(
+                    new File("src/test/resources/test-service.yml").getAbsolutePath(), outputFile.getAbsolutePath());
+            assertThatThrownBy(() ->
+                    CompileDaemon.forward(serverSocket.getLocalPort(), "not-the-token", args, TIMEOUT))
+                    .hasMessageContaining("Invalid daemon token");
+            assertThat(outputFile).doesNotExist();
+
+            // the daemon keeps serving after a rejected request
+            CompileDaemon.forward(serverSocket.getLocalPort(), token, args, TIMEOUT);
+            assertThat(outputFile).isFile();
+        }
+    }
+
+    @Test
+    public void daemonRecompilesModifiedFiles() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            String token = CompileDaemon.writeToken(new File(folder.getRoot(), "daemon.token").toPath());
+            Thread daemon = new Thread(() -> CompileDaemon.serve(serverSocket, token));
+            daemon.start();
+            List<String> args = ImmutableList.of(inputFile.getAbsolutePath(), outputFile.getAbsolutePath());
+
+            writeAlias(inputFile, "FirstAlias");
+            CompileDaemon.forward(serverSocket.getLocalPort(), token, args, TIMEOUT);
+            assertThat(new String(Files.readAllBytes(outputFile.toPath()), StandardCharsets.UTF_8))
+                    .contains("FirstAlias");
+
+            // the daemon keeps the files it read, but reads them again once they are modified
+            writeAlias(inputFile, "ModifiedAlias");
+            CompileDaemon.forward(serverSocket.getLocalPort(), token, args, TIMEOUT);
+            assertThat(new String(Files.readAllBytes(outputFile.toPath()), StandardCharsets.UTF_8))
+                    .contains("ModifiedAlias")
+                    .doesNotContain("FirstAlias");
+        }
+    }
+
+    @Test
+    public void compilesLocallyWhenDaemonDoesNotAnswer() throws Exception {
+        // a socket which is never accepted from behaves like a hung daemon
+        try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            File tokenDir = folder.newFolder("tokens");
+            CompileDaemon.writeToken(CompileDaemon.tokenFile(tokenDir.toPath(), serverSocket.getLocalPort()));
+            String[] args = {
+                    "compile",
+                    new File("src/test/resources/test-service.yml").getAbsolutePath(),
+                    outputFile.getAbsolutePath(),
+                    "--daemon-port", Integer.toString(serverSocket.getLocalPort()),
+                    "--daemon-token-dir", tokenDir.getAbsolutePath(),
+                    "--daemon-timeout", "1"};
+            ConjureCli.CompileCommand cmd = new CommandLine(new ConjureCli()).parse(args).get(1).getCommand();
+            cmd.run();
+            assertThat(outputFile).isFile();
+        }
+    }
+
+    private static void writeAlias(File file, String name) throws IOException {
+        Files.write(file.toPath(), ImmutableList.of(
+                "types:",
+                "  definitions:",
+                "    default-package: test.api",
+                "    objects:",
+                "      " + name + ":",
+                "        alias: string"), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void generatesSmileIr() throws IOException {
+        File input = new File("src/test/resources/test-service.yml");
+        CliConfiguration configuration = CliConfiguration.builder()
+                .inputFiles(ImmutableList.of(input))
+                .outputIrFile(outputFile)
+                .irFormat(IrFormat.SMILE)
+                .build();
+        ConjureCli.CompileCommand.generate(configuration);
+        assertThat(IrFormat.read(outputFile)).isEqualTo(Conjure.parse(ImmutableList.of(input)));
+    }
+
+    @Test
+    public void writesCompactIrWithNoPretty() throws IOException {
+        File input = new File("src/test/resources/test-service.yml");
+        CliConfiguration configuration = CliConfiguration.builder()
+                .inputFiles(ImmutableList.of(input))
+                .outputIrFile(outputFile)
+                .prettyPrint(false)
+                .build();
+        ConjureCli.CompileCommand.generate(configuration);
+        assertThat(Files.readAllBytes(outputFile.toPath()))
+                .isEqualTo(IrFormat.JSON.newObjectMapper().writeValueAsBytes(Conjure.parse(ImmutableList.of(input))));
+    }
+
+    @Test
+    public void reportsAllErrorsWithMaxErrors() throws IOException {
+        Files.write(inputFile.toPath(), ImmutableList.of(
+                "services:",
+                "  TestService:",
+                "    name: Test Service",
+                "    package: test.api",
+                "    endpoints:",
+                "      first:",
+                "        http: GET /first",
+                "        args:",
+                "          body: string",
+                "      second:",
+                "        http: GET /second",
+                "        args:",
+                "          body: string"), StandardCharsets.UTF_8);
+        CliConfiguration configuration = CliConfiguration.builder()
+                .inputFiles(ImmutableList.of(inputFile))
+                .outputIrFile(outputFile)
+                .maxErrors(10)
+                .build();
+        assertThatThrownBy(() -> ConjureCli.CompileCommand.generate(configuration))
+                .isInstanceOf(ConjureValidationException.class)
+                .hasMessageContaining("Found 2 errors")
+                .hasMessageContaining("[NO_GET_BODY_VALIDATOR] TestService.first")
+                .hasMessageContaining("[NO_GET_BODY_VALIDATOR] TestService.second");
+        assertThat(outputFile).doesNotExist();
+    }
+
     @Test
     public void throwsWhenInvalidDefinition() throws Exception {
         CliConfiguration configuration = CliConfiguration.builder()